@@ -0,0 +1,71 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import com.kgromov.domain.DailyTemperatureDocument;
+import com.kgromov.dtos.DailyTemperatureDto;
+import com.kgromov.service.DailyTemperatureMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// per item conversions of the sync steps: entity <-> dto and entity <-> Mongo document
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+    private final DailyTemperatureMapper mapper = new DailyTemperatureMapper();
+    private final WriteToMongoProcessor toMongoProcessor = new WriteToMongoProcessor();
+    private final ReadFromMongoProcessor fromMongoProcessor = new ReadFromMongoProcessor();
+
+    private DailyTemperature entity;
+    private DailyTemperatureDto dto;
+    private DailyTemperatureDocument document;
+
+    @Setup
+    public void setUp() {
+        entity = DailyTemperature.builder()
+                .city(City.ODESSA)
+                .date(LocalDate.of(2023, 3, 15))
+                .morningTemperature(4.5)
+                .afternoonTemperature(11.25)
+                .eveningTemperature(7.0)
+                .nightTemperature(-1.75)
+                .build();
+        dto = mapper.mapToDto(entity);
+        document = toMongoProcessor.process(entity);
+    }
+
+    @Benchmark
+    public DailyTemperatureDto entityToDto() {
+        return mapper.mapToDto(entity);
+    }
+
+    @Benchmark
+    public DailyTemperature dtoToEntity() {
+        return mapper.mapToEntity(dto);
+    }
+
+    @Benchmark
+    public DailyTemperatureDocument entityToDocument() {
+        return toMongoProcessor.process(entity);
+    }
+
+    @Benchmark
+    public DailyTemperature documentToEntity() {
+        return fromMongoProcessor.process(document);
+    }
+}
@@ -0,0 +1,177 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Writing ROWS days in chunks of CHUNK_SIZE, one transaction per chunk:
+ *  writeIntoEmptyTable - the plain JdbcBatchItemWriter INSERT of writeMode=INSERT against both MySqlBulkWriter modes;
+ *  rewritePresentDays  - re-running the same range, which only the upserting modes survive.
+ * Needs the MySQL schema from application.yml (parameter defaults) with the DailyTemperature table and is excluded
+ * from the default benchmark run: mvn -Pbenchmarks verify -DskipTests -Djmh.include=MySqlBulkWriterBenchmark
+ * Rows go to a scratch copy of the table that is dropped at the end.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MySqlBulkWriterBenchmark {
+    private static final String TABLE = "DailyTemperatureBenchmark";
+    private static final int ROWS = 20_000;
+    private static final int CHUNK_SIZE = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param("jdbc:mysql://localhost:3306/weather_archive?rewriteBatchedStatements=true&allowLoadLocalInfile=true")
+        private String url;
+        @Param("root")
+        private String user;
+        @Param("admin")
+        private String password;
+
+        private SingleConnectionDataSource dataSource;
+        private JdbcTemplate jdbcTemplate;
+        private TransactionTemplate transactionTemplate;
+        private final List<DailyTemperature> rows = rows();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            dataSource = new SingleConnectionDataSource(url, user, password, true);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " LIKE DailyTemperature");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+            dataSource.destroy();
+        }
+
+        ItemWriter<DailyTemperature> writer(String writer) {
+            if ("INSERT".equals(writer)) {
+                JdbcBatchItemWriter<DailyTemperature> insertWriter = new JdbcBatchItemWriterBuilder<DailyTemperature>()
+                        .dataSource(dataSource)
+                        .sql("insert into " + TABLE + "(city, date, morningTemperature, afternoonTemperature, eveningTemperature, nightTemperature)"
+                                + " values (:city, :date, :morningTemperature, :afternoonTemperature, :eveningTemperature, :nightTemperature)")
+                        .itemSqlParameterSourceProvider(item -> new BeanPropertySqlParameterSource(item) {
+                            @Override
+                            public Object getValue(String paramName) {
+                                return "city".equals(paramName) ? item.getCity().name() : super.getValue(paramName);
+                            }
+                        })
+                        .build();
+                insertWriter.afterPropertiesSet();
+                return insertWriter;
+            }
+            return new MySqlBulkWriter(dataSource, TABLE, MySqlBulkWriter.Mode.valueOf(writer));
+        }
+
+        void truncate() {
+            jdbcTemplate.execute("TRUNCATE TABLE " + TABLE);
+        }
+
+        void writeAll(ItemWriter<DailyTemperature> writer) {
+            for (int from = 0; from < rows.size(); from += CHUNK_SIZE) {
+                Chunk<DailyTemperature> chunk = new Chunk<>(rows.subList(from, Math.min(rows.size(), from + CHUNK_SIZE)));
+                transactionTemplate.executeWithoutResult(status -> {
+                    try {
+                        writer.write(chunk);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyTable {
+        @Param({"INSERT", "MULTI_ROW_UPSERT", "LOAD_DATA"})
+        private String writer;
+        private ItemWriter<DailyTemperature> itemWriter;
+
+        @Setup(Level.Trial)
+        public void setUp(Database database) {
+            itemWriter = database.writer(writer);
+        }
+
+        @Setup(Level.Iteration)
+        public void truncate(Database database) {
+            database.truncate();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PresentDays {
+        @Param({"MULTI_ROW_UPSERT", "LOAD_DATA"})
+        private String upsertWriter;
+        private ItemWriter<DailyTemperature> itemWriter;
+
+        @Setup(Level.Trial)
+        public void setUp(Database database) {
+            itemWriter = database.writer(upsertWriter);
+        }
+
+        @Setup(Level.Iteration)
+        public void preload(Database database) {
+            database.truncate();
+            database.writeAll(itemWriter);
+        }
+    }
+
+    @Benchmark
+    public void writeIntoEmptyTable(Database database, EmptyTable table) {
+        database.writeAll(table.itemWriter);
+    }
+
+    @Benchmark
+    public void rewritePresentDays(Database database, PresentDays table) {
+        database.writeAll(table.itemWriter);
+    }
+
+    private static List<DailyTemperature> rows() {
+        List<DailyTemperature> rows = new ArrayList<>(ROWS);
+        LocalDate start = LocalDate.of(1970, 1, 1);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(DailyTemperature.builder()
+                    .city(City.values()[i % City.values().length])
+                    .date(start.plusDays(i / City.values().length))
+                    .morningTemperature((double) (i % 30))
+                    .afternoonTemperature((double) (i % 35))
+                    .eveningTemperature((double) (i % 25))
+                    .nightTemperature(i % 7 == 0 ? null : (double) (i % 20))
+                    .build());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,52 @@
+package com.kgromov.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DailyTemperatureDocumentBenchmark {
+    private DailyTemperatureDocument document;
+
+    @Setup
+    public void setUp() {
+        document = DailyTemperatureDocument.builder()
+                .city(City.ODESSA)
+                .date(LocalDateTime.of(2023, 3, 16, 0, 0))
+                .morningTemperature(4.5)
+                .afternoonTemperature(11.25)
+                .eveningTemperature(7.0)
+                .nightTemperature(-1.75)
+                .build();
+    }
+
+    @Benchmark
+    public Double max() {
+        return document.getMax();
+    }
+
+    @Benchmark
+    public Double min() {
+        return document.getMin();
+    }
+
+    @Benchmark
+    public Double average() {
+        return document.getAverage();
+    }
+}
@@ -0,0 +1,58 @@
+package com.kgromov.dtos;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// part-of-day averages of a day: 8 measurements is a sinoptik page, 48 - a meteopost one
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemperatureMeasurementsDtoBenchmark {
+    @Param({"8", "48"})
+    private int measurementsPerDay;
+
+    private TemperatureMeasurementsDto measurements;
+
+    @Setup
+    public void setUp() {
+        measurements = new TemperatureMeasurementsDto(LocalDate.of(2023, 3, 15));
+        int step = 24 * 60 / measurementsPerDay;
+        for (int i = 0; i < measurementsPerDay; i++) {
+            measurements.addMeasurement(i * step, (i * 7) % 23 - 5);
+        }
+    }
+
+    @Benchmark
+    public void partOfTheDayAverages(Blackhole blackhole) {
+        blackhole.consume(measurements.getMorningTemperature());
+        blackhole.consume(measurements.getAfternoonTemperature());
+        blackhole.consume(measurements.getEveningTemperature());
+        blackhole.consume(measurements.getNightTemperature());
+    }
+
+    @Benchmark
+    public void addMeasurements(Blackhole blackhole) {
+        TemperatureMeasurementsDto day = new TemperatureMeasurementsDto(measurements.getDate());
+        int step = 24 * 60 / measurementsPerDay;
+        for (int i = 0; i < measurementsPerDay; i++) {
+            day.addMeasurement(i * step, i);
+        }
+        blackhole.consume(day);
+    }
+}
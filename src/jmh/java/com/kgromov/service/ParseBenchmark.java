@@ -0,0 +1,61 @@
+package com.kgromov.service;
+
+import com.kgromov.dtos.TemperatureMeasurementsDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// streaming and Jsoup DOM parsing of the saved pages from src/test/resources/pages
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    private static final LocalDate DATE = LocalDate.of(2023, 3, 15);
+
+    private byte[] sinoptik;
+    private byte[] meteopost;
+
+    @Setup
+    public void setUp() throws IOException {
+        sinoptik = StreamingTemperatureParserTests.fixture("sinoptik.html");
+        meteopost = StreamingTemperatureParserTests.fixture("meteopost.html");
+    }
+
+    @Benchmark
+    public TemperatureMeasurementsDto sinoptikDom() throws IOException {
+        return SinoptikExtractor.parseDocument(sinoptik, "https://ua.sinoptik.ua", DATE);
+    }
+
+    @Benchmark
+    public TemperatureMeasurementsDto sinoptikStreaming() {
+        TemperatureMeasurementsDto dto = new TemperatureMeasurementsDto(DATE);
+        StreamingTemperatureParser.parseSinoptik(sinoptik, dto::addMeasurement);
+        return dto;
+    }
+
+    @Benchmark
+    public TemperatureMeasurementsDto meteopostDom() throws IOException {
+        return MeteopostExtractor.parseDocument(meteopost, "https://meteopost.com/weather/archive/", DATE);
+    }
+
+    @Benchmark
+    public TemperatureMeasurementsDto meteopostStreaming() {
+        TemperatureMeasurementsDto dto = new TemperatureMeasurementsDto(DATE);
+        StreamingTemperatureParser.parseMeteopost(meteopost, dto::addMeasurement);
+        return dto;
+    }
+}
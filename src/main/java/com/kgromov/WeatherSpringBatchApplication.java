@@ -1,24 +1,20 @@
 package com.kgromov;
 
-import com.kgromov.domain.DailyTemperature;
-import com.kgromov.repository.DailyTemperatureRepository;
 import com.kgromov.service.TemperatureService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.data.domain.Sort;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.IntStream;
 
 @Slf4j
 @SpringBootApplication
@@ -38,24 +34,39 @@ public class WeatherSpringBatchApplication {
         };
     }
 
+    // finds gaps between stored days of the given cities and fetches only the missing days
     //    @Bean
-    ApplicationRunner findMissedMeasurementDays(DailyTemperatureRepository temperatureRepository) {
+    ApplicationRunner fillGaps(JobLauncher jobLauncher, Job gapFillJob) {
         return args -> {
-            List<LocalDate> dates = temperatureRepository.findAll(Sort.by(Sort.Direction.ASC, "date"))
-                    .stream()
-                    .map(DailyTemperature::getDate)
-                    .toList();
-            List<LocalDate> missedDates = new ArrayList<>();
-            for (int i = 0; i < dates.size() - 1; i++) {
-                LocalDate prev = dates.get(i);
-                LocalDate next = dates.get(i + 1);
-                long diffInDays = ChronoUnit.DAYS.between(prev, next);
-                if (diffInDays > 1) {
-                    List<LocalDate> iterMissed = IntStream.range(1, (int) diffInDays).boxed().map(prev::plusDays).toList();
-                    missedDates.addAll(iterMissed);
-                }
-            }
-            log.info("Missed measurements: {}", missedDates);
+            JobParameters jobParameters = new JobParametersBuilder()
+                    .addString("cities", "ODESSA")
+                    .addLong("startedAt", System.currentTimeMillis())
+                    .toJobParameters();
+            jobLauncher.run(gapFillJob, jobParameters);
+        };
+    }
+
+    // seeds an empty environment from the bundled dump
+    //    @Bean
+    ApplicationRunner importArchive(JobLauncher jobLauncher, Job importArchiveJob) {
+        return args -> {
+            JobParameters jobParameters = new JobParametersBuilder()
+                    .addString("file", "data.csv")
+                    .addString("city", "ODESSA")
+                    .addLong("startedAt", System.currentTimeMillis())
+                    .toJobParameters();
+            jobLauncher.run(importArchiveJob, jobParameters);
+        };
+    }
+
+    // recomputes daily stats and monthly/yearly rollups over the whole weather archive
+    //    @Bean
+    ApplicationRunner rebuildRollups(JobLauncher jobLauncher, Job rebuildRollupsJob) {
+        return args -> {
+            JobParameters jobParameters = new JobParametersBuilder()
+                    .addLong("startedAt", System.currentTimeMillis())
+                    .toJobParameters();
+            jobLauncher.run(rebuildRollupsJob, jobParameters);
         };
     }
 
@@ -72,6 +83,23 @@ public class WeatherSpringBatchApplication {
         };
     }
 
+    // relaunch with the same parameters restarts the failed instance from the last committed day of each partition
+    //    @Bean
+    ApplicationRunner restartFetch(JobLauncher jobLauncher,
+                                   JobExplorer jobExplorer,
+                                   Job fetchTemperatureJob) {
+        return args -> {
+            JobInstance lastInstance = jobExplorer.getLastJobInstance(fetchTemperatureJob.getName());
+            JobExecution lastExecution = lastInstance == null ? null : jobExplorer.getLastJobExecution(lastInstance);
+            if (lastExecution == null || !lastExecution.getStatus().isUnsuccessful()) {
+                log.info("Nothing to restart for {}", fetchTemperatureJob.getName());
+                return;
+            }
+            log.info("Restart {} with {}", fetchTemperatureJob.getName(), lastExecution.getJobParameters());
+            jobLauncher.run(fetchTemperatureJob, lastExecution.getJobParameters());
+        };
+    }
+
     //    @Bean()
     ApplicationRunner addNextDays(JobLauncher jobLauncher,
                                   Job readFromMongoJob,
@@ -0,0 +1,72 @@
+package com.kgromov.batch;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// splits an archive dump into byte ranges that start and end on line boundaries, so ranges can be parsed independently
+@Slf4j
+@RequiredArgsConstructor
+public class ArchiveFilePartitioner implements Partitioner {
+    public static final String FILE = "file";
+    public static final String START_OFFSET = "startOffset";
+    public static final String END_OFFSET = "endOffset";
+    // a range is memory mapped as a whole
+    static final long MAX_RANGE_SIZE = 1L << 30;
+
+    private final Path file;
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long parts = Math.max(1, Math.max(gridSize, (size + MAX_RANGE_SIZE - 1) / MAX_RANGE_SIZE));
+            long start = 0;
+            for (long i = 1; i <= parts && start < size; i++) {
+                long end = i == parts ? size : nextLineStart(channel, Math.max(start, size * i / parts), size);
+                if (end > start) {
+                    ExecutionContext context = new ExecutionContext();
+                    context.putString(FILE, file.toString());
+                    context.putLong(START_OFFSET, start);
+                    context.putLong(END_OFFSET, end);
+                    partitions.put("range-" + partitions.size(), context);
+                }
+                start = end;
+            }
+            log.info("Split {} of {} bytes into {} ranges", file, size, partitions.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to split " + file, e);
+        }
+        return partitions;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
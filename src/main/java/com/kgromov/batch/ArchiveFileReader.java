@@ -0,0 +1,210 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/*
+ * Parses one line-aligned byte range of an archive dump straight from a memory mapped buffer.
+ * Formats (by file extension):
+ * .csv  - "id";"afternoonTemperature";"date";"eveningTemperature";"morningTemperature";"nightTemperature" header, ';' separated
+ * .json - array with one object per line
+ * Lines without a date (header, brackets) are skipped.
+ */
+public class ArchiveFileReader extends AbstractItemCountingItemStreamItemReader<DailyTemperature> {
+    private static final byte[] DATE = ascii("\"date\"");
+    private static final byte[] MORNING = ascii("\"morningTemperature\"");
+    private static final byte[] AFTERNOON = ascii("\"afternoonTemperature\"");
+    private static final byte[] EVENING = ascii("\"eveningTemperature\"");
+    private static final byte[] NIGHT = ascii("\"nightTemperature\"");
+
+    private final Path file;
+    private final long startOffset;
+    private final long endOffset;
+    private final City city;
+    private final boolean json;
+    private MappedByteBuffer buffer;
+    private int position;
+
+    public ArchiveFileReader(Path file, long startOffset, long endOffset, City city) {
+        this.file = file;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.city = city;
+        this.json = file.getFileName().toString().toLowerCase().endsWith(".json");
+        this.setName(ArchiveFileReader.class.getSimpleName());
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, startOffset, endOffset - startOffset);
+        }
+        position = 0;
+    }
+
+    @Override
+    protected DailyTemperature doRead() {
+        int limit = buffer.limit();
+        while (position < limit) {
+            int lineStart = position;
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            position = lineEnd + 1;
+            DailyTemperature temperature = json ? parseJson(buffer, lineStart, lineEnd, city) : parseCsv(buffer, lineStart, lineEnd, city);
+            if (temperature != null) {
+                return temperature;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void doClose() {
+        buffer = null;
+    }
+
+    // id;afternoon;"date";evening;morning;night
+    static DailyTemperature parseCsv(ByteBuffer line, int from, int to, City city) {
+        int[] fields = new int[7];
+        int count = 0;
+        fields[count++] = from;
+        for (int i = from; i < to && count < fields.length; i++) {
+            if (line.get(i) == ';') {
+                fields[count++] = i + 1;
+            }
+        }
+        if (count < 6) {
+            return null;
+        }
+        fields[6] = to + 1;
+        LocalDate date = parseDate(line, fields[2], fields[3] - 1);
+        if (date == null) {
+            return null;
+        }
+        return DailyTemperature.builder()
+                .city(city)
+                .date(date)
+                .afternoonTemperature(parseDecimal(line, fields[1], fields[2] - 1))
+                .eveningTemperature(parseDecimal(line, fields[3], fields[4] - 1))
+                .morningTemperature(parseDecimal(line, fields[4], fields[5] - 1))
+                .nightTemperature(parseDecimal(line, fields[5], fields[6] - 1))
+                .build();
+    }
+
+    // {"id":1, "afternoonTemperature":-3.42, "date":"2010-01-28", ...}
+    static DailyTemperature parseJson(ByteBuffer line, int from, int to, City city) {
+        int date = valueStart(line, from, to, DATE);
+        if (date < 0) {
+            return null;
+        }
+        LocalDate day = parseDate(line, date, valueEnd(line, date, to));
+        if (day == null) {
+            return null;
+        }
+        return DailyTemperature.builder()
+                .city(city)
+                .date(day)
+                .morningTemperature(jsonDecimal(line, from, to, MORNING))
+                .afternoonTemperature(jsonDecimal(line, from, to, AFTERNOON))
+                .eveningTemperature(jsonDecimal(line, from, to, EVENING))
+                .nightTemperature(jsonDecimal(line, from, to, NIGHT))
+                .build();
+    }
+
+    private static Double jsonDecimal(ByteBuffer line, int from, int to, byte[] key) {
+        int start = valueStart(line, from, to, key);
+        return start < 0 ? null : parseDecimal(line, start, valueEnd(line, start, to));
+    }
+
+    // first byte after "key" and ':'
+    private static int valueStart(ByteBuffer line, int from, int to, byte[] key) {
+        int last = to - key.length;
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < key.length && line.get(i + j) == key[j]) {
+                j++;
+            }
+            if (j == key.length) {
+                int colon = i + key.length;
+                while (colon < to && line.get(colon) != ':') {
+                    colon++;
+                }
+                return colon < to ? colon + 1 : -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int valueEnd(ByteBuffer line, int from, int to) {
+        int i = from;
+        while (i < to && line.get(i) != ',' && line.get(i) != '}') {
+            i++;
+        }
+        return i;
+    }
+
+    // yyyy-MM-dd, optionally quoted and padded
+    static LocalDate parseDate(ByteBuffer line, int from, int to) {
+        int[] parts = new int[3];
+        int part = 0;
+        boolean digits = false;
+        for (int i = from; i < to; i++) {
+            byte b = line.get(i);
+            if (b >= '0' && b <= '9') {
+                parts[part] = parts[part] * 10 + (b - '0');
+                digits = true;
+            } else if (b == '-' && digits && part < 2) {
+                part++;
+                digits = false;
+            } else if (b != '"' && b != ' ' && b != '\r') {
+                return null;
+            }
+        }
+        return part == 2 && digits ? LocalDate.of(parts[0], parts[1], parts[2]) : null;
+    }
+
+    // [-]digits[.digits], null for empty or "null"
+    static Double parseDecimal(ByteBuffer line, int from, int to) {
+        long value = 0;
+        long scale = 1;
+        boolean negative = false;
+        boolean fraction = false;
+        boolean digits = false;
+        for (int i = from; i < to; i++) {
+            byte b = line.get(i);
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                if (fraction) {
+                    scale *= 10;
+                }
+                digits = true;
+            } else if (b == '-' && !digits) {
+                negative = true;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b != ' ' && b != '"' && b != '\r' && b != '+') {
+                return null;
+            }
+        }
+        if (!digits) {
+            return null;
+        }
+        double decimal = (double) value / scale;
+        return negative ? -decimal : decimal;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
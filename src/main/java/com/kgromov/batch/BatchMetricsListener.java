@@ -0,0 +1,59 @@
+package com.kgromov.batch;
+
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Per step (partitions are reported under the name of their worker step):
+ * weather.batch.chunk - chunk time up to the commit, outcome = committed | rolled-back;
+ * weather.batch.items - written items, so rate(weather_batch_items_total) is items/sec of the step.
+ */
+public class BatchMetricsListener implements ChunkListener {
+    private static final String STARTED_AT = "metrics.chunk.startedAt";
+    private static final String WRITTEN_BEFORE = "metrics.chunk.writtenBefore";
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        context.setAttribute(STARTED_AT, System.nanoTime());
+        context.setAttribute(WRITTEN_BEFORE, stepExecution(context).getWriteCount());
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        String step = stepName(context);
+        recordChunkTime(context, step, "committed");
+        Object writtenBefore = context.getAttribute(WRITTEN_BEFORE);
+        if (writtenBefore != null) {
+            long written = stepExecution(context).getWriteCount() - (long) writtenBefore;
+            Metrics.counter("weather.batch.items", "step", step).increment(written);
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        recordChunkTime(context, stepName(context), "rolled-back");
+    }
+
+    private static void recordChunkTime(ChunkContext context, String step, String outcome) {
+        Object startedAt = context.getAttribute(STARTED_AT);
+        if (startedAt != null) {
+            Metrics.timer("weather.batch.chunk", "step", step, "outcome", outcome)
+                    .record(System.nanoTime() - (long) startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static StepExecution stepExecution(ChunkContext context) {
+        return context.getStepContext().getStepExecution();
+    }
+
+    // fetch-temperature-worker-step:partition3 -> fetch-temperature-worker-step
+    private static String stepName(ChunkContext context) {
+        String name = stepExecution(context).getStepName();
+        int partitionSuffix = name.indexOf(':');
+        return partitionSuffix < 0 ? name : name.substring(0, partitionSuffix);
+    }
+}
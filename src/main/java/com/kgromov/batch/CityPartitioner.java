@@ -0,0 +1,68 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// one partition per (city, date sub-range); gridSize is shared between cities
+@Slf4j
+@RequiredArgsConstructor
+public class CityPartitioner implements Partitioner {
+    public static final String CITY = "city";
+    public static final String START_DATE = DateRangePartitioner.START_DATE;
+    public static final String END_DATE = DateRangePartitioner.END_DATE;
+
+    private final List<City> cities;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    // comma separated City names, e.g. "ODESSA,KYIV"; Odessa only when empty
+    public static List<City> parseCities(String cities) {
+        if (cities == null || cities.isBlank()) {
+            return List.of(City.ODESSA);
+        }
+        return Arrays.stream(cities.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(name -> City.valueOf(name.toUpperCase()))
+                .distinct()
+                .toList();
+    }
+
+    // one partition per city, no date range
+    public static Partitioner byCity(List<City> cities) {
+        return gridSize -> {
+            Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+            for (City city : cities) {
+                ExecutionContext context = new ExecutionContext();
+                context.putString(CITY, city.name());
+                partitions.put("city-" + city.getName(), context);
+            }
+            return partitions;
+        };
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        int rangesPerCity = Math.max(1, gridSize / cities.size());
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        for (City city : cities) {
+            List<DateRangePartitioner.DateRange> ranges = DateRangePartitioner.split(startDate, endDate, rangesPerCity);
+            for (int i = 0; i < ranges.size(); i++) {
+                ExecutionContext context = DateRangePartitioner.toContext(ranges.get(i));
+                context.putString(CITY, city.name());
+                partitions.put("city-" + city.getName() + "-range-" + i, context);
+            }
+        }
+        log.info("Fetch partitions: {}", partitions.keySet());
+        return partitions;
+    }
+}
@@ -0,0 +1,60 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
+import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
+import org.springframework.batch.item.database.support.MySqlPagingQueryProvider;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// maps DailyTemperature rows straight into detached entities - no persistence context involved
+public class DailyTemperatureRowMapper implements RowMapper<DailyTemperature> {
+    static final String COLUMNS = "id, city, date, morningTemperature, afternoonTemperature, eveningTemperature, nightTemperature, updatedAt";
+
+    @Override
+    public DailyTemperature mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return DailyTemperature.builder()
+                .id(rs.getLong("id"))
+                .city(City.valueOf(rs.getString("city")))
+                .date(rs.getObject("date", LocalDate.class))
+                .morningTemperature(rs.getObject("morningTemperature", Double.class))
+                .afternoonTemperature(rs.getObject("afternoonTemperature", Double.class))
+                .eveningTemperature(rs.getObject("eveningTemperature", Double.class))
+                .nightTemperature(rs.getObject("nightTemperature", Double.class))
+                .updatedAt(rs.getObject("updatedAt", LocalDateTime.class))
+                .build();
+    }
+
+    /*
+     * Keyset paging: every next page starts with "where <sort keys> > <last read keys>" instead of OFFSET,
+     * so sort keys have to be unique - (city, date), or date or (updatedAt, date) within one city.
+     */
+    public static JdbcPagingItemReader<DailyTemperature> pagingReader(String name,
+                                                                      DataSource dataSource,
+                                                                      String whereClause,
+                                                                      Map<String, Object> parameterValues,
+                                                                      Map<String, Order> sortKeys) {
+        MySqlPagingQueryProvider queryProvider = new MySqlPagingQueryProvider();
+        queryProvider.setSelectClause(COLUMNS);
+        queryProvider.setFromClause("DailyTemperature");
+        queryProvider.setWhereClause(whereClause);
+        queryProvider.setSortKeys(sortKeys);
+        return new JdbcPagingItemReaderBuilder<DailyTemperature>()
+                .name(name)
+                .dataSource(dataSource)
+                .queryProvider(queryProvider)
+                .parameterValues(parameterValues)
+                .rowMapper(new DailyTemperatureRowMapper())
+                .pageSize(1000)
+                .fetchSize(1000)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.kgromov.batch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// splits [startDate, endDate] into gridSize contiguous, non-overlapping sub-ranges of (almost) equal length
+@RequiredArgsConstructor
+public class DateRangePartitioner implements Partitioner {
+    public static final String START_DATE = "startDate";
+    public static final String END_DATE = "endDate";
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    public record DateRange(LocalDate startDate, LocalDate endDate) {}
+
+    public static List<DateRange> split(LocalDate startDate, LocalDate endDate, int parts) {
+        List<DateRange> ranges = new ArrayList<>();
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            return ranges;
+        }
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        long rangesCount = Math.max(1, Math.min(parts, days));
+        long baseSize = days / rangesCount;
+        long remainder = days % rangesCount;
+        LocalDate from = startDate;
+        for (long i = 0; i < rangesCount; i++) {
+            long size = baseSize + (i < remainder ? 1 : 0);
+            LocalDate to = from.plusDays(size - 1);
+            ranges.add(new DateRange(from, to));
+            from = to.plusDays(1);
+        }
+        return ranges;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        List<DateRange> ranges = split(startDate, endDate, gridSize);
+        for (int i = 0; i < ranges.size(); i++) {
+            partitions.put("range-" + i, toContext(ranges.get(i)));
+        }
+        return partitions;
+    }
+
+    public static ExecutionContext toContext(DateRange range) {
+        ExecutionContext context = new ExecutionContext();
+        context.put(START_DATE, range.startDate());
+        context.put(END_DATE, range.endDate());
+        return context;
+    }
+}
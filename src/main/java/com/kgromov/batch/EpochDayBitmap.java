@@ -0,0 +1,80 @@
+package com.kgromov.batch;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.BitSet;
+
+/*
+ * Set of days as one bit per epoch day starting from the first (earliest) day:
+ * a year of days costs 46 bytes instead of hundreds of boxed LocalDate entries.
+ * Serialized form is the first day plus the trimmed bit words.
+ */
+public class EpochDayBitmap implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private transient long firstDay;
+    private transient BitSet days = new BitSet();
+
+    public void add(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        if (days.isEmpty()) {
+            firstDay = epochDay;
+        } else if (epochDay < firstDay) {
+            BitSet shifted = new BitSet();
+            int shift = toIndex(firstDay - epochDay);
+            days.stream().forEach(index -> shifted.set(index + shift));
+            days = shifted;
+            firstDay = epochDay;
+        }
+        days.set(toIndex(epochDay - firstDay));
+    }
+
+    public boolean contains(LocalDate date) {
+        long offset = date.toEpochDay() - firstDay;
+        return offset >= 0 && offset < days.length() && days.get((int) offset);
+    }
+
+    public int size() {
+        return days.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return days.isEmpty();
+    }
+
+    private static int toIndex(long offset) {
+        return Math.toIntExact(offset);
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.writeLong(firstDay);
+        long[] words = days.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException {
+        firstDay = in.readLong();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        days = BitSet.valueOf(words);
+    }
+
+    @Override
+    public String toString() {
+        return days.isEmpty()
+                ? "[]"
+                : "[" + LocalDate.ofEpochDay(firstDay) + "; " + LocalDate.ofEpochDay(firstDay + days.length() - 1) + "], " + size() + " days";
+    }
+}
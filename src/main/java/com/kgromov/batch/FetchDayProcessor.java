@@ -0,0 +1,28 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import com.kgromov.service.TemperatureExtractor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.time.LocalDate;
+
+// fetches one day of a city; days the sources have nothing for are filtered out
+@Slf4j
+@RequiredArgsConstructor
+public class FetchDayProcessor implements ItemProcessor<LocalDate, DailyTemperature> {
+    private final City city;
+    private final TemperatureExtractor temperatureExtractor;
+
+    @Override
+    public DailyTemperature process(LocalDate date) {
+        return temperatureExtractor.getTemperatureAt(city, date)
+                .map(measurements -> new DailyTemperature(city, measurements))
+                .orElseGet(() -> {
+                    log.warn("{}: no data at source for {}", city, date);
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,52 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.DailyTemperature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+ * Collects days written by one gap-fill partition as compact ranges and saves them
+ * into the step execution context under RECOVERED_DAYS, e.g. "2021-03-01..2021-03-04, 2021-05-07".
+ */
+@Slf4j
+public class GapFillSummaryListener implements StepExecutionListener, ItemWriteListener<DailyTemperature> {
+    public static final String RECOVERED_DAYS = "recovered.days";
+
+    private final List<DateRangePartitioner.DateRange> recovered = new ArrayList<>();
+
+    @Override
+    public void afterWrite(Chunk<? extends DailyTemperature> items) {
+        for (DailyTemperature item : items) {
+            LocalDate date = item.getDate();
+            int last = recovered.size() - 1;
+            if (last >= 0 && recovered.get(last).endDate().plusDays(1).equals(date)) {
+                recovered.set(last, new DateRangePartitioner.DateRange(recovered.get(last).startDate(), date));
+            } else {
+                recovered.add(new DateRangePartitioner.DateRange(date, date));
+            }
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        String days = recovered.stream()
+                .map(range -> range.startDate().equals(range.endDate())
+                        ? range.startDate().toString()
+                        : range.startDate() + ".." + range.endDate())
+                .collect(Collectors.joining(", "));
+        stepExecution.getExecutionContext().putString(RECOVERED_DAYS, days);
+        log.info("{}: missing = {}, recovered = {}, not available = {}, days = [{}]",
+                stepExecution.getStepName(), stepExecution.getReadCount(), stepExecution.getWriteCount(),
+                stepExecution.getFilterCount(), days);
+        return stepExecution.getExitStatus();
+    }
+}
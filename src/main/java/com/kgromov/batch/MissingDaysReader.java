@@ -0,0 +1,73 @@
+package com.kgromov.batch;
+
+import com.kgromov.batch.DateRangePartitioner.DateRange;
+import com.kgromov.domain.City;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+/*
+ * Streams the days missing between the first and the last stored day of a city.
+ * Gaps are found by the database with LAG over the (city, date) index, only one row per gap crosses the wire;
+ * the reader expands every gap into its days. Nothing is saved on restart - filled days are no gaps anymore.
+ */
+@Slf4j
+public class MissingDaysReader implements ItemStreamReader<LocalDate> {
+    static final String GAPS_SQL = """
+            SELECT prev_date, date
+            FROM (SELECT date, LAG(date) OVER (ORDER BY date) AS prev_date
+                  FROM DailyTemperature
+                  WHERE city = ?) d
+            WHERE DATEDIFF(date, prev_date) > 1
+            ORDER BY date
+            """;
+
+    private final City city;
+    private final JdbcCursorItemReader<DateRange> gapsReader;
+    private DateRange currentGap;
+    private LocalDate nextDate;
+
+    public MissingDaysReader(DataSource dataSource, City city) {
+        this.city = city;
+        this.gapsReader = new JdbcCursorItemReaderBuilder<DateRange>()
+                .name("missing-days-reader")
+                .dataSource(dataSource)
+                .sql(GAPS_SQL)
+                .preparedStatementSetter(ps -> ps.setString(1, city.name()))
+                .rowMapper((rs, rowNum) -> new DateRange(
+                        rs.getObject("prev_date", LocalDate.class).plusDays(1),
+                        rs.getObject("date", LocalDate.class).minusDays(1)))
+                .saveState(false)
+                .build();
+    }
+
+    @Override
+    public LocalDate read() throws Exception {
+        while (currentGap == null || nextDate.isAfter(currentGap.endDate())) {
+            currentGap = gapsReader.read();
+            if (currentGap == null) {
+                return null;
+            }
+            log.info("{}: missing days [{}; {}]", city, currentGap.startDate(), currentGap.endDate());
+            nextDate = currentGap.startDate();
+        }
+        LocalDate date = nextDate;
+        nextDate = date.plusDays(1);
+        return date;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        gapsReader.open(executionContext);
+    }
+
+    @Override
+    public void close() {
+        gapsReader.close();
+    }
+}
@@ -0,0 +1,89 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.DailyTemperatureDocument;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/*
+ * Writes a chunk as one unordered bulk of upserts keyed on (city, date), so re-running a range is a no-op
+ * for already stored days instead of a duplicate key failure.
+ * Inserted/matched counters are kept in the execution context of the running step (safe for partitions).
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MongoBulkUpsertWriter implements ItemWriter<DailyTemperatureDocument>, StepExecutionListener {
+    public static final String INSERTED = "mongo.inserted";
+    public static final String MATCHED = "mongo.matched";
+
+    private final MongoTemplate template;
+    private final String collection;
+    private final DistributionSummary batchSize = DistributionSummary.builder("weather.writer.batch.size")
+            .tag("writer", "mongo-upsert")
+            .register(Metrics.globalRegistry);
+    private final Timer batchTimer = Timer.builder("weather.writer.batch")
+            .tag("writer", "mongo-upsert")
+            .register(Metrics.globalRegistry);
+
+    @Override
+    public void write(Chunk<? extends DailyTemperatureDocument> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = template.bulkOps(BulkOperations.BulkMode.UNORDERED, DailyTemperatureDocument.class, collection);
+        for (DailyTemperatureDocument document : chunk) {
+            Query byKey = new Query(MongoQueries.cityIs(document.getCity()))
+                    .addCriteria(Criteria.where("date").is(document.getDate()));
+            bulk.upsert(byKey, toUpdate(document));
+        }
+        BulkWriteResult result = batchTimer.record(bulk::execute);
+        batchSize.record(chunk.size());
+        int inserted = result.getUpserts().size();
+        log.debug("{}: upserted chunk of size = {}: inserted = {}, matched = {}, modified = {}",
+                Thread.currentThread().getName(), chunk.size(), inserted, result.getMatchedCount(), result.getModifiedCount());
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context != null) {
+            ExecutionContext executionContext = context.getStepExecution().getExecutionContext();
+            executionContext.putLong(INSERTED, executionContext.getLong(INSERTED, 0) + inserted);
+            executionContext.putLong(MATCHED, executionContext.getLong(MATCHED, 0) + result.getMatchedCount());
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        log.info("{}: {} inserted = {}, matched = {}", stepExecution.getStepName(), collection,
+                executionContext.getLong(INSERTED, 0), executionContext.getLong(MATCHED, 0));
+        return stepExecution.getExitStatus();
+    }
+
+    // every mapped field but _id is set, so a matched legacy document without city or daily stats gets them as well
+    private Update toUpdate(DailyTemperatureDocument document) {
+        Document fields = new Document();
+        template.getConverter().write(document, fields);
+        fields.remove("_id");
+        fields.put("city", document.getCity().name());
+        // stats always follow the parts of the day being written, never what the item happened to carry
+        fields.put("min", document.dailyMin());
+        fields.put("max", document.dailyMax());
+        fields.put("average", document.dailyAverage());
+        return Update.fromDocument(new Document("$set", fields));
+    }
+}
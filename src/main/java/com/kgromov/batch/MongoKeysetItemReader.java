@@ -0,0 +1,131 @@
+package com.kgromov.batch;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+/*
+ * Pages over a collection by the last seen (date, _id) instead of skip/limit,
+ * so every page is an index range scan and a full pass is linear in the collection size.
+ * Not thread-safe: run one instance per partition (city and/or date range) to read in parallel.
+ * Restarts continue after the last committed key.
+ */
+@Slf4j
+public class MongoKeysetItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+    private static final String DATE = "date";
+    private static final String ID = "_id";
+    private static final String LAST_DATE = "last.date";
+    private static final String LAST_ID = "last.id";
+
+    private final MongoTemplate template;
+    private final String collection;
+    private final Class<? extends T> targetType;
+    private final Criteria criteria;
+    private final List<String> fields;
+    private final int pageSize;
+    private Iterator<Document> page;
+    private boolean lastPage;
+    private Date lastDate;
+    private ObjectId lastId;
+
+    @Builder
+    private MongoKeysetItemReader(String name,
+                                  MongoTemplate template,
+                                  String collection,
+                                  Class<? extends T> targetType,
+                                  Criteria criteria,
+                                  List<String> fields,
+                                  int pageSize) {
+        this.template = template;
+        this.collection = collection;
+        this.targetType = targetType;
+        this.criteria = criteria != null ? criteria : new Criteria();
+        this.fields = fields != null ? fields : List.of();
+        this.pageSize = pageSize > 0 ? pageSize : 1000;
+        this.setName(name != null ? name : MongoKeysetItemReader.class.getSimpleName());
+    }
+
+    @Override
+    protected T doRead() {
+        if (page == null || !page.hasNext()) {
+            if (lastPage) {
+                return null;
+            }
+            List<Document> documents = template.find(nextPageQuery(), Document.class, collection);
+            lastPage = documents.size() < pageSize;
+            page = documents.iterator();
+            if (!page.hasNext()) {
+                return null;
+            }
+        }
+        Document document = page.next();
+        lastDate = document.getDate(DATE);
+        lastId = document.getObjectId(ID);
+        return template.getConverter().read(targetType, document);
+    }
+
+    private Query nextPageQuery() {
+        Criteria pageCriteria = criteria;
+        if (lastDate != null) {
+            Criteria afterLastKey = new Criteria().orOperator(
+                    Criteria.where(DATE).gt(lastDate),
+                    Criteria.where(DATE).is(lastDate).and(ID).gt(lastId));
+            pageCriteria = new Criteria().andOperator(criteria, afterLastKey);
+        }
+        Query query = new Query(pageCriteria)
+                .with(Sort.by(Sort.Direction.ASC, DATE, ID))
+                .limit(pageSize);
+        if (!fields.isEmpty()) {
+            query.fields().include(DATE).include(ID);
+            fields.forEach(field -> query.fields().include(field));
+        }
+        return query;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        super.open(executionContext);
+        String lastDateKey = getExecutionContextKey(LAST_DATE);
+        if (executionContext.containsKey(lastDateKey)) {
+            lastDate = (Date) executionContext.get(lastDateKey);
+            lastId = new ObjectId(executionContext.getString(getExecutionContextKey(LAST_ID)));
+            log.info("Restart reading {} after date = {}, _id = {}", collection, lastDate, lastId);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        super.update(executionContext);
+        if (isSaveState() && lastDate != null) {
+            executionContext.put(getExecutionContextKey(LAST_DATE), lastDate);
+            executionContext.putString(getExecutionContextKey(LAST_ID), lastId.toHexString());
+        }
+    }
+
+    // position is restored from the saved key in open(), there is nothing to skip
+    @Override
+    protected void jumpToItem(int itemIndex) {
+    }
+
+    @Override
+    protected void doOpen() {
+        page = null;
+        lastPage = false;
+    }
+
+    @Override
+    protected void doClose() {
+        page = null;
+    }
+}
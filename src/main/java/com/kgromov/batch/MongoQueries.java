@@ -0,0 +1,65 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperatureDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+
+@Slf4j
+public final class MongoQueries {
+    public static final String WEATHER_ARCHIVE = "weather_archive";
+    public static final String CITY_DATE_INDEX = "city_date";
+    // unique per day from the single city era, rejects the same day for a second city
+    static final String LEGACY_DATE_INDEX = "date_1";
+
+    private MongoQueries() {
+    }
+
+    // documents written before cities were introduced have no city and are Odessa
+    public static Criteria cityIs(City city) {
+        return city == City.ODESSA
+                ? Criteria.where("city").in(city, null)
+                : Criteria.where("city").is(city);
+    }
+
+    public static Criteria citiesIn(Collection<City> cities) {
+        return new Criteria().orOperator(cities.stream().map(MongoQueries::cityIs).toArray(Criteria[]::new));
+    }
+
+    // [startDate; endDate] as stored in Mongo, i.e. already shifted by the timezone diff
+    public static Criteria dateBetween(LocalDate startDate, LocalDate endDate) {
+        return Criteria.where("date").gte(startDate.atStartOfDay()).lt(endDate.plusDays(1).atStartOfDay());
+    }
+
+    public static Optional<LocalDate> findFirstDate(MongoTemplate mongoTemplate, Collection<City> cities, Sort.Direction direction) {
+        Query query = new Query(citiesIn(cities)).with(Sort.by(direction, "date")).limit(1);
+        query.fields().include("date");
+        return Optional.ofNullable(mongoTemplate.findOne(query, DailyTemperatureDocument.class, WEATHER_ARCHIVE))
+                .map(document -> document.getDate().toLocalDate());
+    }
+
+    // auto index creation is off, so the upsert key of weather_archive is ensured explicitly
+    public static void ensureIndexes(MongoTemplate mongoTemplate) {
+        IndexOperations indexOps = mongoTemplate.indexOps(WEATHER_ARCHIVE);
+        boolean legacyIndex = indexOps.getIndexInfo().stream()
+                .anyMatch(index -> LEGACY_DATE_INDEX.equals(index.getName()));
+        if (legacyIndex) {
+            log.info("Dropping unique index {} of {}", LEGACY_DATE_INDEX, WEATHER_ARCHIVE);
+            indexOps.dropIndex(LEGACY_DATE_INDEX);
+        }
+        indexOps.ensureIndex(new Index()
+                .named(CITY_DATE_INDEX)
+                .on("city", Sort.Direction.ASC)
+                .on("date", Sort.Direction.ASC)
+                .unique());
+    }
+}
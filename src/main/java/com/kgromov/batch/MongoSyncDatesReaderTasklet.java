@@ -1,5 +1,6 @@
 package com.kgromov.batch;
 
+import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperatureDocument;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,34 +9,28 @@ import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.item.ExecutionContext;
-import org.springframework.batch.item.data.MongoItemReader;
+import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.repeat.RepeatStatus;
-import org.springframework.util.StopWatch;
 
-import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.EnumMap;
+import java.util.Map;
 
 @Slf4j
 @RequiredArgsConstructor
 public class MongoSyncDatesReaderTasklet implements Tasklet, StepExecutionListener {
-    private final MongoItemReader<DailyTemperatureDocument> delegate;
+    private final ItemReader<DailyTemperatureDocument> delegate;
 
     @Override
     public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
         log.info("Start step to fetch dates to sync");
-        StopWatch stopWatch = new StopWatch();
-        stopWatch.start("Collect dates to sync");
-        Set<LocalDate> datesToSync = new HashSet<>();
+        Map<City, EpochDayBitmap> datesToSync = new EnumMap<>(City.class);
         DailyTemperatureDocument row;
         while((row = delegate.read()) != null) {
-            datesToSync.add(row.getDate().toLocalDate());
+            datesToSync.computeIfAbsent(row.getCity(), city -> new EpochDayBitmap()).add(row.getDate().toLocalDate());
         }
         ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getJobExecution().getExecutionContext();
         executionContext.put("datesToSync", datesToSync);
-        stopWatch.stop();
         log.info("Dates to sync = {}", datesToSync);
-        log.info("Finish step to fetch dates to sync in {} ms", stopWatch.getLastTaskTimeMillis());
         return RepeatStatus.FINISHED;
     }
 
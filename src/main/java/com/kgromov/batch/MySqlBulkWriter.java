@@ -0,0 +1,164 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.DailyTemperature;
+import com.kgromov.domain.TemperatureChangedEvent;
+import com.mysql.cj.jdbc.JdbcStatement;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+/*
+ * MySQL specific bulk load of DailyTemperature rows, idempotent on the (city, date) unique key:
+ * MULTI_ROW_UPSERT - one INSERT ... VALUES (..),(..) ON DUPLICATE KEY UPDATE statement per up to ROWS_PER_STATEMENT rows;
+ * LOAD_DATA        - LOAD DATA LOCAL INFILE of an in-memory TSV buffer into a per-connection temporary staging table,
+ *                    then one INSERT ... SELECT with the same ON DUPLICATE KEY UPDATE; needs allowLoadLocalInfile=true.
+ *                    Loading straight into the table would need REPLACE, which deletes and re-inserts present days:
+ *                    their IDENTITY ids would change and updatedAt would move even for unchanged values.
+ * Runs on the connection of the chunk transaction; when created as a bean, announces written days with TemperatureChangedEvent.
+ * MULTI_ROW_UPSERT also backs DailyTemperatureJdbcRepository.upsert, so fetch, sync and Mongo-to-MySQL writes share one statement.
+ */
+@Slf4j
+public class MySqlBulkWriter implements ItemWriter<DailyTemperature>, ApplicationEventPublisherAware {
+    static final int ROWS_PER_STATEMENT = 1000;
+    private static final String COLUMNS = "city, date, morningTemperature, afternoonTemperature, eveningTemperature, nightTemperature";
+    private static final String ON_DUPLICATE_KEY_UPDATE = " ON DUPLICATE KEY UPDATE"
+            + " morningTemperature = VALUES(morningTemperature),"
+            + " afternoonTemperature = VALUES(afternoonTemperature),"
+            + " eveningTemperature = VALUES(eveningTemperature),"
+            + " nightTemperature = VALUES(nightTemperature)";
+
+    public enum Mode {
+        MULTI_ROW_UPSERT, LOAD_DATA;
+
+        // job parameter value, case-insensitive; multi-row upsert when empty
+        public static Mode of(String value) {
+            return value == null || value.isBlank() ? MULTI_ROW_UPSERT : valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    private final DataSource dataSource;
+    private final String table;
+    private final Mode mode;
+    private final DistributionSummary batchSize;
+    private final Timer batchTimer;
+    private ApplicationEventPublisher eventPublisher;
+
+    public MySqlBulkWriter(DataSource dataSource, Mode mode) {
+        this(dataSource, "DailyTemperature", mode);
+    }
+
+    public MySqlBulkWriter(DataSource dataSource, String table, Mode mode) {
+        this.dataSource = dataSource;
+        this.table = table;
+        this.mode = mode;
+        String writer = "mysql-" + mode.name().toLowerCase().replace('_', '-');
+        this.batchSize = DistributionSummary.builder("weather.writer.batch.size").tag("writer", writer).register(Metrics.globalRegistry);
+        this.batchTimer = Timer.builder("weather.writer.batch").tag("writer", writer).register(Metrics.globalRegistry);
+    }
+
+    @Override
+    public void write(Chunk<? extends DailyTemperature> chunk) throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            Timer.Sample sample = Timer.start();
+            if (mode == Mode.LOAD_DATA) {
+                loadData(connection, chunk.getItems());
+            } else {
+                for (int from = 0; from < chunk.size(); from += ROWS_PER_STATEMENT) {
+                    upsert(connection, chunk.getItems().subList(from, Math.min(chunk.size(), from + ROWS_PER_STATEMENT)));
+                }
+            }
+            long elapsedNanos = sample.stop(batchTimer);
+            if (eventPublisher != null) {
+                eventPublisher.publishEvent(new TemperatureChangedEvent(chunk.size()));
+            }
+            batchSize.record(chunk.size());
+            log.debug("{}: {} rows written in {} ms", mode, chunk.size(), elapsedNanos / 1_000_000);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    private void upsert(Connection connection, List<? extends DailyTemperature> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append('(').append(COLUMNS).append(") VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
+        }
+        sql.append(ON_DUPLICATE_KEY_UPDATE);
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (DailyTemperature row : rows) {
+                statement.setString(index++, row.getCity().name());
+                statement.setDate(index++, Date.valueOf(row.getDate()));
+                setTemperature(statement, index++, row.getMorningTemperature());
+                setTemperature(statement, index++, row.getAfternoonTemperature());
+                setTemperature(statement, index++, row.getEveningTemperature());
+                setTemperature(statement, index++, row.getNightTemperature());
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private void loadData(Connection connection, List<? extends DailyTemperature> rows) throws SQLException {
+        StringBuilder tsv = new StringBuilder(rows.size() * 48);
+        for (DailyTemperature row : rows) {
+            tsv.append(row.getCity().name()).append('\t')
+                    .append(row.getDate()).append('\t');
+            appendTemperature(tsv, row.getMorningTemperature()).append('\t');
+            appendTemperature(tsv, row.getAfternoonTemperature()).append('\t');
+            appendTemperature(tsv, row.getEveningTemperature()).append('\t');
+            appendTemperature(tsv, row.getNightTemperature()).append('\n');
+        }
+        // temporary tables neither commit the chunk transaction nor clash between connections
+        String staging = table + "Staging";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE IF NOT EXISTS " + staging + " LIKE " + table);
+            statement.execute("DELETE FROM " + staging);
+            statement.unwrap(JdbcStatement.class)
+                    .setLocalInfileInputStream(new ByteArrayInputStream(tsv.toString().getBytes(StandardCharsets.UTF_8)));
+            // REPLACE within the chunk only: the last row of a day wins, as with the multi-row upsert
+            statement.execute("LOAD DATA LOCAL INFILE 'stream' REPLACE INTO TABLE " + staging
+                    + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n' (" + COLUMNS + ")");
+            statement.executeUpdate("INSERT INTO " + table + '(' + COLUMNS + ") SELECT " + COLUMNS + " FROM " + staging
+                    + ON_DUPLICATE_KEY_UPDATE);
+        }
+    }
+
+    private static void setTemperature(PreparedStatement statement, int index, Double temperature) throws SQLException {
+        if (temperature == null) {
+            statement.setNull(index, Types.DOUBLE);
+        } else {
+            statement.setDouble(index, temperature);
+        }
+    }
+
+    // \N is NULL for LOAD DATA
+    private static StringBuilder appendTemperature(StringBuilder tsv, Double temperature) {
+        return temperature == null ? tsv.append("\\N") : tsv.append(temperature.doubleValue());
+    }
+}
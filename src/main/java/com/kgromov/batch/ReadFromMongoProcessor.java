@@ -0,0 +1,20 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.DailyTemperature;
+import com.kgromov.domain.DailyTemperatureDocument;
+import org.springframework.batch.item.ItemProcessor;
+
+public class ReadFromMongoProcessor implements ItemProcessor<DailyTemperatureDocument, DailyTemperature> {
+
+    @Override
+    public DailyTemperature process(DailyTemperatureDocument document) {
+        return DailyTemperature.builder()
+                .city(document.getCity())
+                .date(document.getDate().toLocalDate().minusDays(1))          // due to Mongo timezone diff
+                .morningTemperature(document.getMorningTemperature())
+                .afternoonTemperature(document.getAfternoonTemperature())
+                .eveningTemperature(document.getEveningTemperature())
+                .nightTemperature(document.getNightTemperature())
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperatureDocument;
+import com.kgromov.service.TemperatureRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+// refreshes monthly/yearly rollups of the months the step has written to, once per city at the end of the step
+@RequiredArgsConstructor
+public class RollupRefreshListener implements ItemWriteListener<DailyTemperatureDocument>, StepExecutionListener {
+    private final TemperatureRollupService rollupService;
+    private final Map<City, LocalDate[]> writtenRanges = new EnumMap<>(City.class);
+
+    @Override
+    public void afterWrite(Chunk<? extends DailyTemperatureDocument> items) {
+        for (DailyTemperatureDocument document : items) {
+            LocalDate date = document.getDate().toLocalDate().minusDays(1);          // due to Mongo timezone diff
+            LocalDate[] range = writtenRanges.computeIfAbsent(document.getCity(), city -> new LocalDate[]{date, date});
+            if (date.isBefore(range[0])) {
+                range[0] = date;
+            }
+            if (date.isAfter(range[1])) {
+                range[1] = date;
+            }
+        }
+    }
+
+    // written chunks are in Mongo whatever the step outcome is
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        writtenRanges.forEach((city, range) -> rollupService.refresh(city, range[0], range[1]));
+        return stepExecution.getExitStatus();
+    }
+}
@@ -0,0 +1,36 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import com.kgromov.domain.DailyTemperatureDocument;
+import com.kgromov.service.SyncWatermarkService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+import java.time.LocalDateTime;
+
+// moves the city watermark to the latest synced updatedAt once the delta sync partition of the city completed
+@RequiredArgsConstructor
+public class SyncWatermarkListener implements StepExecutionListener, ItemProcessListener<DailyTemperature, DailyTemperatureDocument> {
+    private final City city;
+    private final SyncWatermarkService watermarkService;
+    private LocalDateTime lastUpdate;
+
+    @Override
+    public void afterProcess(DailyTemperature item, DailyTemperatureDocument result) {
+        if (item.getUpdatedAt() != null && (lastUpdate == null || item.getUpdatedAt().isAfter(lastUpdate))) {
+            lastUpdate = item.getUpdatedAt();
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (lastUpdate != null && ExitStatus.COMPLETED.equals(stepExecution.getExitStatus())) {
+            watermarkService.advance(city, lastUpdate);
+        }
+        return stepExecution.getExitStatus();
+    }
+}
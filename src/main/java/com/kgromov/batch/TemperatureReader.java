@@ -3,29 +3,26 @@ package com.kgromov.batch;
 import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperature;
 import com.kgromov.service.TemperatureExtractor;
-import jakarta.annotation.PostConstruct;
 import lombok.Builder;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.batch.core.StepExecution;
-import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
 
 import java.time.LocalDate;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import static java.time.format.DateTimeFormatter.ISO_DATE;
 
+// reads one contiguous date range of one city; not shared between threads - parallelism comes from partitions
 @Slf4j
-@RequiredArgsConstructor
 public class TemperatureReader extends AbstractItemCountingItemStreamItemReader<DailyTemperature> {
-    private City city;
-    private LocalDate startDate;
-    private ThreadLocal<LocalDate> currentDate = new ThreadLocal<>();
-    private LocalDate endDate = LocalDate.now();
+    // last day of the range that is committed, saved on every chunk commit
+    private static final String LAST_DATE = "last.date";
+    private final City city;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
     private final TemperatureExtractor temperatureExtractor;
-    private AtomicLong daysOffset = new AtomicLong();
+    private LocalDate currentDate;
 
     @Builder
     private TemperatureReader(City city, LocalDate startDate, LocalDate endDate, TemperatureExtractor temperatureExtractor) {
@@ -33,44 +30,53 @@ public class TemperatureReader extends AbstractItemCountingItemStreamItemReader<
         this.startDate = startDate;
         this.endDate = endDate;
         this.temperatureExtractor = temperatureExtractor;
-    }
-
-    @PostConstruct
-    private void setContextName() {
+        this.currentDate = startDate;
         this.setName(TemperatureReader.class.getSimpleName());
     }
 
     @Override
     protected DailyTemperature doRead() {
-        log.info("Read daily temperature");
-        if (city == null || startDate == null || endDate == null || startDate.isAfter(endDate)) {
-            return null;
-        }
-        synchronized (DailyTemperature.class) {
-            LocalDate currentDate = startDate.plusDays(daysOffset.get());
-            this.currentDate.set(currentDate);
-            daysOffset.getAndIncrement();
-        }
-        if (currentDate.get().isAfter(endDate)) {
+        if (city == null || currentDate == null || endDate == null || currentDate.isAfter(endDate)) {
             return null;
         }
+        LocalDate date = currentDate;
         DailyTemperature temperature;
         try {
-            LocalDate currentDate = this.currentDate.get();
-            temperature = temperatureExtractor.getTemperatureAt(city, currentDate).map(DailyTemperature::new)
-                    .orElseThrow(getRuntimeExceptionSupplier(currentDate));
-            log.info("Thread {}: currentItemCount = {}, daysOffset = {}, currentDate = {}, startDate = {}",
-                    Thread.currentThread().getName(), getCurrentItemCount(), daysOffset, currentDate.format(ISO_DATE), startDate.format(ISO_DATE));
+            temperature = temperatureExtractor.getTemperatureAt(city, date)
+                    .map(measurements -> new DailyTemperature(city, measurements))
+                    .orElseThrow(getRuntimeExceptionSupplier(date));
         } catch (Exception e) {
-            throw getRuntimeExceptionSupplier(currentDate.get(), e).get();
+            throw getRuntimeExceptionSupplier(date, e).get();
         }
+        log.debug("Thread {}: city = {}, currentItemCount = {}, currentDate = {}, startDate = {}",
+                Thread.currentThread().getName(), city, getCurrentItemCount(), date.format(ISO_DATE), startDate.format(ISO_DATE));
+        currentDate = date.plusDays(1);
         return temperature;
     }
 
-    @BeforeStep
-    public void saveStartDate(StepExecution stepExecution) {
-        log.info("Save syncStartDate = {} before step execution", startDate);
-        stepExecution.getJobExecution().getExecutionContext().put("syncStartDate", startDate);
+    @Override
+    public void open(ExecutionContext executionContext) {
+        super.open(executionContext);
+        String lastDateKey = getExecutionContextKey(LAST_DATE);
+        if (executionContext.containsKey(lastDateKey)) {
+            LocalDate lastDate = (LocalDate) executionContext.get(lastDateKey);
+            currentDate = lastDate.plusDays(1);
+            log.info("Restart {} from {}: days up to {} are already written", city, currentDate.format(ISO_DATE), lastDate.format(ISO_DATE));
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        super.update(executionContext);
+        if (isSaveState() && currentDate != null && currentDate.isAfter(startDate)) {
+            executionContext.put(getExecutionContextKey(LAST_DATE), currentDate.minusDays(1));
+        }
+    }
+
+    // on restart skip committed days without fetching them again
+    @Override
+    protected void jumpToItem(int itemIndex) {
+        currentDate = startDate.plusDays(itemIndex);
     }
 
     @Override
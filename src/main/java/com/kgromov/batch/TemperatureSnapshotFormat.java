@@ -0,0 +1,164 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+ * Columnar DailyTemperature snapshot:
+ *   header  - magic "WTS1"
+ *   block*  - int payload length, int CRC32 of payload, payload
+ *   payload - city name (byte length + ASCII), varint row count,
+ *             dates as zig-zag varint epoch day deltas (the first one from 0),
+ *             morning, afternoon, evening and night columns of shorts in hundredths of a degree (Short.MIN_VALUE - no value)
+ * A block holds up to MAX_BLOCK_ROWS rows of one city; sorted dates make most deltas one byte.
+ */
+public final class TemperatureSnapshotFormat {
+    public static final int MAX_BLOCK_ROWS = 4096;
+    static final int MAGIC = 0x57545331;
+    static final int HEADER_SIZE = Integer.BYTES;
+    static final int BLOCK_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final short NO_VALUE = Short.MIN_VALUE;
+    private static final int SCALE = 100;
+
+    private TemperatureSnapshotFormat() {
+    }
+
+    public static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).flip();
+    }
+
+    public static void checkHeader(ByteBuffer source) {
+        if (source.remaining() < HEADER_SIZE || source.getInt() != MAGIC) {
+            throw new IllegalStateException("Not a temperature snapshot");
+        }
+    }
+
+    // block header and payload of rows of one city, ready to be written
+    public static ByteBuffer encodeBlock(City city, List<? extends DailyTemperature> rows) {
+        if (rows.isEmpty() || rows.size() > MAX_BLOCK_ROWS) {
+            throw new IllegalArgumentException("Block size has to be in [1; " + MAX_BLOCK_ROWS + "]: " + rows.size());
+        }
+        byte[] cityName = city.name().getBytes(StandardCharsets.US_ASCII);
+        int maxPayloadSize = 1 + cityName.length + 5 + rows.size() * (10 + 4 * Short.BYTES);
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + maxPayloadSize);
+        block.position(BLOCK_HEADER_SIZE);
+        block.put((byte) cityName.length).put(cityName);
+        putVarLong(block, rows.size());
+        long previousDay = 0;
+        for (DailyTemperature row : rows) {
+            long epochDay = row.getDate().toEpochDay();
+            putVarLong(block, zigZag(epochDay - previousDay));
+            previousDay = epochDay;
+        }
+        rows.forEach(row -> block.putShort(toFixedPoint(row.getMorningTemperature())));
+        rows.forEach(row -> block.putShort(toFixedPoint(row.getAfternoonTemperature())));
+        rows.forEach(row -> block.putShort(toFixedPoint(row.getEveningTemperature())));
+        rows.forEach(row -> block.putShort(toFixedPoint(row.getNightTemperature())));
+        int payloadLength = block.position() - BLOCK_HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(block.slice(BLOCK_HEADER_SIZE, payloadLength));
+        block.putInt(0, payloadLength).putInt(Integer.BYTES, (int) crc.getValue());
+        return block.flip();
+    }
+
+    // decodes the block at the source position and moves past it; null at the end of the source
+    public static List<DailyTemperature> decodeBlock(ByteBuffer source) {
+        if (!source.hasRemaining()) {
+            return null;
+        }
+        if (source.remaining() < BLOCK_HEADER_SIZE) {
+            throw new IllegalStateException("Truncated block header at " + source.position());
+        }
+        int blockStart = source.position();
+        int payloadLength = source.getInt();
+        int expectedCrc = source.getInt();
+        if (payloadLength < 0 || payloadLength > source.remaining()) {
+            throw new IllegalStateException("Truncated block at " + blockStart);
+        }
+        ByteBuffer payload = source.slice(source.position(), payloadLength);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IllegalStateException("Checksum mismatch in block at " + blockStart);
+        }
+        source.position(source.position() + payloadLength);
+
+        byte[] cityName = new byte[payload.get()];
+        payload.get(cityName);
+        City city = City.valueOf(new String(cityName, StandardCharsets.US_ASCII));
+        int rowCount = (int) getVarLong(payload);
+        LocalDate[] dates = new LocalDate[rowCount];
+        long epochDay = 0;
+        for (int i = 0; i < rowCount; i++) {
+            epochDay += unZigZag(getVarLong(payload));
+            dates[i] = LocalDate.ofEpochDay(epochDay);
+        }
+        int morning = payload.position();
+        int afternoon = morning + rowCount * Short.BYTES;
+        int evening = afternoon + rowCount * Short.BYTES;
+        int night = evening + rowCount * Short.BYTES;
+        List<DailyTemperature> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            int offset = i * Short.BYTES;
+            rows.add(DailyTemperature.builder()
+                    .city(city)
+                    .date(dates[i])
+                    .morningTemperature(fromFixedPoint(payload.getShort(morning + offset)))
+                    .afternoonTemperature(fromFixedPoint(payload.getShort(afternoon + offset)))
+                    .eveningTemperature(fromFixedPoint(payload.getShort(evening + offset)))
+                    .nightTemperature(fromFixedPoint(payload.getShort(night + offset)))
+                    .build());
+        }
+        return rows;
+    }
+
+    static short toFixedPoint(Double temperature) {
+        if (temperature == null) {
+            return NO_VALUE;
+        }
+        long value = Math.round(temperature * SCALE);
+        if (value <= NO_VALUE || value > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Temperature out of range: " + temperature);
+        }
+        return (short) value;
+    }
+
+    static Double fromFixedPoint(short value) {
+        return value == NO_VALUE ? null : value / (double) SCALE;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarLong(ByteBuffer target, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        target.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer source) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = source.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,52 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.DailyTemperature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+
+// decodes a snapshot block by block straight from the memory mapped file; every block is checksum-verified
+@Slf4j
+public class TemperatureSnapshotReader extends AbstractItemCountingItemStreamItemReader<DailyTemperature> {
+    private final Path file;
+    private MappedByteBuffer buffer;
+    private Iterator<DailyTemperature> block;
+
+    public TemperatureSnapshotReader(Path file) {
+        this.file = file;
+        this.setName(TemperatureSnapshotReader.class.getSimpleName());
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        TemperatureSnapshotFormat.checkHeader(buffer);
+        log.info("Read snapshot {} of {} bytes", file, buffer.capacity());
+    }
+
+    @Override
+    protected DailyTemperature doRead() {
+        while (block == null || !block.hasNext()) {
+            List<DailyTemperature> rows = TemperatureSnapshotFormat.decodeBlock(buffer);
+            if (rows == null) {
+                return null;
+            }
+            block = rows.iterator();
+        }
+        return block.next();
+    }
+
+    @Override
+    protected void doClose() {
+        buffer = null;
+        block = null;
+    }
+}
@@ -0,0 +1,107 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Appends rows to a snapshot, one block per city run of up to MAX_BLOCK_ROWS rows.
+ * The snapshot is written to a .tmp file that replaces the target only when the step completed.
+ * Not restartable from the middle: open() starts the .tmp file over, so the reader must not resume either.
+ */
+@Slf4j
+public class TemperatureSnapshotWriter implements ItemStreamWriter<DailyTemperature>, StepExecutionListener {
+    private final Path file;
+    private final Path tmpFile;
+    private final List<DailyTemperature> pending = new ArrayList<>(TemperatureSnapshotFormat.MAX_BLOCK_ROWS);
+    private FileChannel channel;
+
+    public TemperatureSnapshotWriter(Path file) {
+        this.file = file;
+        this.tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        try {
+            channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            writeFully(TemperatureSnapshotFormat.header());
+        } catch (IOException e) {
+            throw new ItemStreamException("Unable to open " + tmpFile, e);
+        }
+    }
+
+    @Override
+    public void write(Chunk<? extends DailyTemperature> chunk) throws IOException {
+        for (DailyTemperature row : chunk) {
+            if (!pending.isEmpty()
+                    && (pending.size() == TemperatureSnapshotFormat.MAX_BLOCK_ROWS || pending.get(0).getCity() != row.getCity())) {
+                flushBlock();
+            }
+            pending.add(row);
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        try {
+            if (ExitStatus.COMPLETED.equals(stepExecution.getExitStatus())) {
+                flushBlock();
+                channel.force(true);
+                channel.close();
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.info("Snapshot {}: {} rows, {} bytes", file, stepExecution.getWriteCount(), Files.size(file));
+            } else {
+                channel.close();
+                Files.deleteIfExists(tmpFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to finish snapshot " + file, e);
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (channel != null && channel.isOpen()) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Unable to close " + tmpFile, e);
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        City city = pending.get(0).getCity();
+        writeFully(TemperatureSnapshotFormat.encodeBlock(city, pending));
+        pending.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
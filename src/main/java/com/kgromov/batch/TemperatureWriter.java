@@ -1,24 +1,20 @@
 package com.kgromov.batch;
 
 import com.kgromov.domain.DailyTemperature;
-import com.kgromov.repository.DailyTemperatureRepository;
+import com.kgromov.repository.DailyTemperatureJdbcRepository;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
+// one batched upsert round trip per chunk; re-fetched days overwrite stored ones
 @Service
-@Slf4j
 @RequiredArgsConstructor
 public class TemperatureWriter implements ItemWriter<DailyTemperature> {
-    private final DailyTemperatureRepository temperatureRepository;
+    private final DailyTemperatureJdbcRepository temperatureJdbcRepository;
 
     @Override
     public void write(Chunk<? extends DailyTemperature> chunk) {
-        log.info("{}: write temperature of chunk of size = {}", Thread.currentThread().getName(), chunk.getItems().size());
-        temperatureRepository.saveAll(chunk.getItems());
+        temperatureJdbcRepository.upsert(chunk.getItems());
     }
 }
@@ -1,5 +1,6 @@
 package com.kgromov.batch;
 
+import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperature;
 import com.kgromov.domain.DailyTemperatureDocument;
 import lombok.RequiredArgsConstructor;
@@ -8,24 +9,30 @@ import org.springframework.batch.core.annotation.BeforeStep;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.util.CollectionUtils;
 
-import java.time.LocalDate;
-import java.util.Set;
+import java.util.Map;
 
 @RequiredArgsConstructor
 public class WriteToMongoProcessor implements ItemProcessor<DailyTemperature, DailyTemperatureDocument> {
-    private Set<LocalDate> datesToSync;
+    private Map<City, EpochDayBitmap> datesToSync;
 
     @BeforeStep
     public void readDatesToSync(StepExecution stepExecution) {
-        this.datesToSync = (Set<LocalDate>) stepExecution.getJobExecution().getExecutionContext().get("datesToSync");
+        this.datesToSync = (Map<City, EpochDayBitmap>) stepExecution.getJobExecution().getExecutionContext().get("datesToSync");
     }
 
     @Override
     public DailyTemperatureDocument process(DailyTemperature entity) {
-        if (!CollectionUtils.isEmpty(datesToSync) && datesToSync.contains(entity.getDate().plusDays(1))) {
+        EpochDayBitmap syncedDates = CollectionUtils.isEmpty(datesToSync) ? null : datesToSync.get(entity.getCity());
+        if (syncedDates != null && syncedDates.contains(entity.getDate().plusDays(1))) {
             return null;
         }
+        return toDocument(entity);
+    }
+
+    // the one stored date convention of weather_archive: every writer converting days to documents goes through here
+    public static DailyTemperatureDocument toDocument(DailyTemperature entity) {
         return DailyTemperatureDocument.builder()
+                .city(entity.getCity())
                 .date(entity.getDate().atStartOfDay().plusDays(1))             // due to Mongo timezone diff
                 .morningTemperature(entity.getMorningTemperature())
                 .afternoonTemperature(entity.getAfternoonTemperature())
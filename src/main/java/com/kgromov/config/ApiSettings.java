@@ -0,0 +1,8 @@
+package com.kgromov.config;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+// read API cache: bounded by the size of cached JSON bodies, entries expire after cacheTtl even without sync writes
+public record ApiSettings(DataSize cacheSize, Duration cacheTtl) {}
@@ -0,0 +1,82 @@
+package com.kgromov.config;
+
+import com.kgromov.batch.ArchiveFilePartitioner;
+import com.kgromov.batch.ArchiveFileReader;
+import com.kgromov.batch.BatchMetricsListener;
+import com.kgromov.batch.TemperatureWriter;
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+
+/*
+ * Seeds DailyTemperature from data.csv / data.json like dumps.
+ * Job parameters: file (path, data.csv by default) and city (ODESSA by default).
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ArchiveImportBatchConfig {
+    private final TemperatureWriter temperatureWriter;
+
+    @Bean
+    @StepScope
+    public ArchiveFilePartitioner archiveFilePartitioner(@Value("#{jobParameters[file] ?: 'data.csv'}") String file) {
+        return new ArchiveFilePartitioner(Path.of(file));
+    }
+
+    @Bean
+    @StepScope
+    public ArchiveFileReader archiveFileReader(@Value("#{stepExecutionContext[file]}") String file,
+                                               @Value("#{stepExecutionContext[startOffset]}") Long startOffset,
+                                               @Value("#{stepExecutionContext[endOffset]}") Long endOffset,
+                                               @Value("#{jobParameters[city] ?: 'ODESSA'}") String city) {
+        return new ArchiveFileReader(Path.of(file), startOffset, endOffset, City.valueOf(city.toUpperCase()));
+    }
+
+    @Bean
+    public Step importArchiveWorkerStep(ArchiveFileReader archiveFileReader,
+                                        JobRepository jobRepository,
+                                        BatchMetricsListener batchMetricsListener,
+                                        PlatformTransactionManager transactionManager) {
+        return new StepBuilder("import-archive-worker-step", jobRepository)
+                .<DailyTemperature, DailyTemperature>chunk(1000, transactionManager)
+                .reader(archiveFileReader)
+                .writer(temperatureWriter)
+                .listener(batchMetricsListener)
+                .build();
+    }
+
+    // byte ranges are parsed and written in parallel on the step executor
+    @Bean
+    public Step importArchiveStep(ArchiveFilePartitioner archiveFilePartitioner,
+                                  Step importArchiveWorkerStep,
+                                  @Qualifier("stepExecutor") TaskExecutor taskExecutor,
+                                  JobRepository jobRepository) {
+        return new StepBuilder("import-archive-step", jobRepository)
+                .partitioner(importArchiveWorkerStep.getName(), archiveFilePartitioner)
+                .step(importArchiveWorkerStep)
+                .gridSize(Runtime.getRuntime().availableProcessors())
+                .taskExecutor(taskExecutor)
+                .build();
+    }
+
+    @Bean
+    public Job importArchiveJob(Step importArchiveStep, JobRepository jobRepository) {
+        return new JobBuilder("import-archive-job", jobRepository)
+                .start(importArchiveStep)
+                .build();
+    }
+}
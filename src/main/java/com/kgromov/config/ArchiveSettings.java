@@ -0,0 +1,13 @@
+package com.kgromov.config;
+
+public record ArchiveSettings(Mode mode, String directory) {
+
+    public enum Mode {
+        // always go to the network, nothing is stored
+        OFF,
+        // serve archived pages, fetch and archive missing ones
+        READ_THROUGH,
+        // serve archived pages only, never touch the network
+        REPLAY
+    }
+}
@@ -0,0 +1,22 @@
+package com.kgromov.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kgromov.dtos.JsonSnapshot;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// picked up by Boot's CaffeineCacheManager for the caches of spring.cache.cache-names
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public Caffeine<Object, Object> caffeine(ApiSettings apiSettings) {
+        return Caffeine.newBuilder()
+                .maximumWeight(apiSettings.cacheSize().toBytes())
+                .weigher((key, value) -> value instanceof JsonSnapshot snapshot ? snapshot.body().length : 1)
+                .expireAfterWrite(apiSettings.cacheTtl())
+                .recordStats();
+    }
+}
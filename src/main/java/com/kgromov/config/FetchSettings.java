@@ -0,0 +1,3 @@
+package com.kgromov.config;
+
+public record FetchSettings(int maxInFlight, double sinoptikRequestsPerSecond, double meteopostRequestsPerSecond) {}
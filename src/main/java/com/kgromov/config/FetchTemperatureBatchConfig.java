@@ -1,11 +1,19 @@
 package com.kgromov.config;
 
+import com.kgromov.batch.BatchMetricsListener;
+import com.kgromov.batch.CityPartitioner;
 import com.kgromov.batch.TemperatureReader;
 import com.kgromov.batch.TemperatureWriter;
+import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperature;
 import com.kgromov.service.TemperatureExtractor;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
@@ -15,53 +23,88 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
+import java.util.List;
 
-import static com.kgromov.domain.City.ODESSA;
-
-
+@Slf4j
 @Configuration
 public class FetchTemperatureBatchConfig {
     private final TemperatureWriter temperatureWriter;
     private final TemperatureExtractor temperatureExtractor;
 
     public FetchTemperatureBatchConfig(TemperatureWriter temperatureWriter,
-                                       @Qualifier("sinoptikExtractor") TemperatureExtractor temperatureExtractor) {
+                                       @Qualifier("routingTemperatureExtractor") TemperatureExtractor temperatureExtractor) {
         this.temperatureWriter = temperatureWriter;
         this.temperatureExtractor = temperatureExtractor;
     }
 
     @Bean
     @StepScope
-    public TemperatureReader temperatureReader(@Value("#{jobParameters[syncStartDate]}") LocalDate startDate,
-                                               @Value("#{jobParameters[syncEndDate]}") LocalDate endDate) {
+    public CityPartitioner cityPartitioner(@Value("#{jobParameters[cities]}") String cities,
+                                           @Value("#{jobParameters[syncStartDate]}") LocalDate startDate,
+                                           @Value("#{jobParameters[syncEndDate]}") LocalDate endDate) {
+        return new CityPartitioner(CityPartitioner.parseCities(cities), startDate, endDate);
+    }
+
+    @Bean
+    @StepScope
+    public TemperatureReader temperatureReader(@Value("#{stepExecutionContext[city]}") String city,
+                                               @Value("#{stepExecutionContext[startDate]}") LocalDate startDate,
+                                               @Value("#{stepExecutionContext[endDate]}") LocalDate endDate) {
         return TemperatureReader.builder()
                 .temperatureExtractor(temperatureExtractor)
-                .city(ODESSA)
+                .city(City.valueOf(city))
                 .startDate(startDate)
                 .endDate(endDate)
                 .build();
     }
 
     @Bean
-    public Step fetchTemperatureStep(@Qualifier("stepExecutor") TaskExecutor taskExecutor,
-                                     TemperatureReader temperatureReader,
-                                     JobRepository jobRepository,
-                                     /*JpaItemWriter<DailyTemperature> jpaItemWriter,*/
-                                     PlatformTransactionManager transactionManager) {
-        return new StepBuilder("fetch-temperature-step", jobRepository)
+    public Step fetchTemperatureWorkerStep(TemperatureReader temperatureReader,
+                                           BatchMetricsListener batchMetricsListener,
+                                           JobRepository jobRepository,
+                                           /*JpaItemWriter<DailyTemperature> jpaItemWriter,*/
+                                           PlatformTransactionManager transactionManager) {
+        return new StepBuilder("fetch-temperature-worker-step", jobRepository)
                 .<DailyTemperature, DailyTemperature>chunk(10, transactionManager)
                 .reader(temperatureReader)
 //                .writer(jpaItemWriter)
                 .writer(temperatureWriter)
+                .listener(batchMetricsListener)
+                .build();
+    }
+
+    // fans out one worker partition per (city, date sub-range); partitions run in parallel on the step executor
+    @Bean
+    public Step fetchTemperatureStep(@Qualifier("stepExecutor") TaskExecutor taskExecutor,
+                                     CityPartitioner cityPartitioner,
+                                     Step fetchTemperatureWorkerStep,
+                                     JobRepository jobRepository) {
+        return new StepBuilder("fetch-temperature-step", jobRepository)
+                .partitioner(fetchTemperatureWorkerStep.getName(), cityPartitioner)
+                .step(fetchTemperatureWorkerStep)
+                .gridSize(Runtime.getRuntime().availableProcessors())
                 .taskExecutor(taskExecutor)
+                .listener(saveSyncStartDateListener())
                 .build();
     }
 
+    // later steps of sync jobs read syncStartDate from the job context
+    private static StepExecutionListener saveSyncStartDateListener() {
+        return new StepExecutionListener() {
+            @Override
+            public void beforeStep(StepExecution stepExecution) {
+                LocalDate startDate = stepExecution.getJobParameters().getLocalDate("syncStartDate");
+                log.info("Save syncStartDate = {} before step execution", startDate);
+                stepExecution.getJobExecution().getExecutionContext().put("syncStartDate", startDate);
+            }
+        };
+    }
+
     @Bean
     public Job fetchTemperatureJob(Step fetchTemperatureStep, JobRepository jobRepository) {
         return new JobBuilder("fetchTemperature", jobRepository)
@@ -70,11 +113,25 @@ public class FetchTemperatureBatchConfig {
                 .build();
     }
 
+    // a pool instead of SimpleAsyncTaskExecutor: same concurrency, but queued partitions and busy threads are observable
     @Bean
     @Primary
-    public TaskExecutor stepExecutor() {
-        SimpleAsyncTaskExecutor asyncTaskExecutor = new SimpleAsyncTaskExecutor();
-        asyncTaskExecutor.setConcurrencyLimit(Runtime.getRuntime().availableProcessors());
-        return asyncTaskExecutor;
+    public ThreadPoolTaskExecutor stepExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors());
+        executor.setMaxPoolSize(Runtime.getRuntime().availableProcessors());
+        executor.setThreadNamePrefix("step-");
+        return executor;
+    }
+
+    @Bean
+    public MeterBinder stepExecutorMetrics(ThreadPoolTaskExecutor stepExecutor) {
+        return registry -> new ExecutorServiceMetrics(stepExecutor.getThreadPoolExecutor(), "stepExecutor", List.of())
+                .bindTo(registry);
+    }
+
+    @Bean
+    public BatchMetricsListener batchMetricsListener() {
+        return new BatchMetricsListener();
     }
 }
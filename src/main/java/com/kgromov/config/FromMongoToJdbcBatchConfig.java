@@ -1,38 +1,47 @@
 package com.kgromov.config;
 
+import com.kgromov.batch.BatchMetricsListener;
+import com.kgromov.batch.CityPartitioner;
+import com.kgromov.batch.MongoKeysetItemReader;
+import com.kgromov.batch.MongoQueries;
+import com.kgromov.batch.MySqlBulkWriter;
+import com.kgromov.batch.ReadFromMongoProcessor;
 import com.kgromov.batch.TemperatureWriter;
+import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperature;
 import com.kgromov.domain.DailyTemperatureDocument;
+import com.kgromov.domain.TemperatureChangedEvent;
 import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.integration.async.AsyncItemProcessor;
-import org.springframework.batch.integration.async.AsyncItemWriter;
-import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.ItemReader;
-import org.springframework.batch.item.data.MongoItemReader;
-import org.springframework.batch.item.data.builder.MongoItemReaderBuilder;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.JpaItemWriter;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
 import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.LocalDate;
+import java.util.List;
 
 import static org.springframework.data.domain.Sort.Direction.ASC;
+import static org.springframework.data.domain.Sort.Direction.DESC;
 
 @Configuration
 @Slf4j
@@ -43,14 +52,30 @@ public class FromMongoToJdbcBatchConfig {
     private final TemperatureWriter temperatureWriter;
 
     @Bean
-    public MongoItemReader<DailyTemperatureDocument> mongoItemReader(MongoTemplate mongoTemplate) {
-        return new MongoItemReaderBuilder<DailyTemperatureDocument>()
-                .name("mongo-item-reader")
+    @StepScope
+    public CityPartitioner mongoArchivePartitioner(MongoTemplate mongoTemplate,
+                                                   @Value("#{jobParameters[cities]}") String cities) {
+        List<City> partitionCities = CityPartitioner.parseCities(cities);
+        LocalDate startDate = MongoQueries.findFirstDate(mongoTemplate, partitionCities, ASC).orElse(null);
+        LocalDate endDate = MongoQueries.findFirstDate(mongoTemplate, partitionCities, DESC).orElse(null);
+        log.info("Partition weather archive of {} in [{}; {}]", partitionCities, startDate, endDate);
+        return new CityPartitioner(partitionCities, startDate, endDate);
+    }
+
+    // dates of a partition are Mongo dates, i.e. shifted by the timezone diff the same way as stored documents
+    @Bean
+    @StepScope
+    public MongoKeysetItemReader<DailyTemperatureDocument> mongoKeysetReader(MongoTemplate mongoTemplate,
+                                                                             @Value("#{stepExecutionContext[city]}") String city,
+                                                                             @Value("#{stepExecutionContext[startDate]}") LocalDate startDate,
+                                                                             @Value("#{stepExecutionContext[endDate]}") LocalDate endDate) {
+        return MongoKeysetItemReader.<DailyTemperatureDocument>builder()
+                .name("mongo-keyset-reader")
                 .template(mongoTemplate)
-                .collection("weather_archive")
-                .jsonQuery("{}")
-//                .fields("{'_id': 0, '_class': 0}")
-                .sorts(Map.of("date", ASC))
+                .collection(MongoQueries.WEATHER_ARCHIVE)
+                .criteria(new Criteria().andOperator(
+                        MongoQueries.cityIs(City.valueOf(city)),
+                        MongoQueries.dateBetween(startDate, endDate)))
                 .targetType(DailyTemperatureDocument.class)
                 .pageSize(1000)
                 .build();
@@ -61,14 +86,6 @@ public class FromMongoToJdbcBatchConfig {
         return new ReadFromMongoProcessor();
     }
 
-    @Bean
-    public AsyncItemProcessor<DailyTemperatureDocument, DailyTemperature> temperatureAsyncItemProcessor() {
-        AsyncItemProcessor<DailyTemperatureDocument, DailyTemperature> itemProcessor = new AsyncItemProcessor<>();
-        itemProcessor.setDelegate(fromMongoProcessor());
-        itemProcessor.setTaskExecutor(taskExecutor);
-        return itemProcessor;
-    }
-
     // JpaItemWriter sucks cause insert each and every row even with batch properties configured
     @Bean
     public JpaItemWriter<DailyTemperature> jpaItemWriter(EntityManagerFactory entityManagerFactory) {
@@ -84,34 +101,60 @@ public class FromMongoToJdbcBatchConfig {
                 .dataSource(dataSource)
                 .sql(
                         """
-                            insert into DayTemperature(date, morningTemperature, afternoonTemperature, eveningTemperature, nightTemperature)
-                            values (:date, :morningTemperature, :afternoonTemperature, :eveningTemperature, :nightTemperature)
+                            insert into DailyTemperature(city, date, morningTemperature, afternoonTemperature, eveningTemperature, nightTemperature)
+                            values (:city, :date, :morningTemperature, :afternoonTemperature, :eveningTemperature, :nightTemperature)
                         """
                 )
-                .beanMapped()
+                .itemSqlParameterSourceProvider(item -> new BeanPropertySqlParameterSource(item) {
+                    @Override
+                    public Object getValue(String paramName) {
+                        return "city".equals(paramName) ? item.getCity().name() : super.getValue(paramName);
+                    }
+                })
                 .build();
     }
 
+    // writeMode job parameter: MULTI_ROW_UPSERT (default), LOAD_DATA or INSERT - plain batched inserts that fail on present days;
+    // INSERT announces written days itself, the same way MySqlBulkWriter does, so the read API caches are dropped
     @Bean
-    public AsyncItemWriter<DailyTemperature> temperatureAsyncItemWriter() {
-        AsyncItemWriter<DailyTemperature> asyncItemWriter = new AsyncItemWriter<>();
-//        asyncItemWriter.setDelegate(temperatureWriter);
-        asyncItemWriter.setDelegate(jdbcBatchItemWriter());
-        return asyncItemWriter;
+    @StepScope
+    public ItemWriter<DailyTemperature> mongoToJdbcWriter(@Value("#{jobParameters[writeMode]}") String writeMode,
+                                                          ApplicationEventPublisher eventPublisher) {
+        if ("INSERT".equalsIgnoreCase(writeMode)) {
+            JdbcBatchItemWriter<DailyTemperature> insertWriter = jdbcBatchItemWriter();
+            return chunk -> {
+                insertWriter.write(chunk);
+                eventPublisher.publishEvent(new TemperatureChangedEvent(chunk.size()));
+            };
+        }
+        return new MySqlBulkWriter(dataSource, MySqlBulkWriter.Mode.of(writeMode));
     }
 
     @Bean
-    public Step readFromMongoStep(MongoItemReader<DailyTemperatureDocument> mongoItemReader,
-                                  AsyncItemProcessor<DailyTemperatureDocument, DailyTemperature> temperatureAsyncItemProcessor,
-                                  AsyncItemWriter<DailyTemperature> temperatureAsyncItemWriter,
-                                  JobRepository jobRepository,
-                                  PlatformTransactionManager transactionManager) {
-        return new StepBuilder("read-from-mongo-step", jobRepository)
+    public Step readFromMongoWorkerStep(MongoKeysetItemReader<DailyTemperatureDocument> mongoKeysetReader,
+                                        ItemWriter<DailyTemperature> mongoToJdbcWriter,
+                                        JobRepository jobRepository,
+                                        BatchMetricsListener batchMetricsListener,
+                                        PlatformTransactionManager transactionManager) {
+        return new StepBuilder("read-from-mongo-worker-step", jobRepository)
                 .<DailyTemperatureDocument, DailyTemperature>chunk(1000, transactionManager)
-                .reader(mongoItemReader)
-                .processor((ItemProcessor) temperatureAsyncItemProcessor)
-                .writer(temperatureAsyncItemWriter)
-                .taskExecutor(taskExecutor)  // make no sense for not reactive driver
+                .reader(mongoKeysetReader)
+                .processor(fromMongoProcessor())
+                .writer(mongoToJdbcWriter)
+                .listener(batchMetricsListener)
+                .build();
+    }
+
+    // one keyset reader per (city, date sub-range) partition instead of a shared skip/limit reader
+    @Bean
+    public Step readFromMongoStep(CityPartitioner mongoArchivePartitioner,
+                                  Step readFromMongoWorkerStep,
+                                  JobRepository jobRepository) {
+        return new StepBuilder("read-from-mongo-step", jobRepository)
+                .partitioner(readFromMongoWorkerStep.getName(), mongoArchivePartitioner)
+                .step(readFromMongoWorkerStep)
+                .gridSize(Runtime.getRuntime().availableProcessors())
+                .taskExecutor(taskExecutor)
                 .build();
     }
 
@@ -121,36 +164,4 @@ public class FromMongoToJdbcBatchConfig {
                 .start(readFromMongoStep)
                 .build();
     }
-
-    @Slf4j
-    private static class ReadFromMongoProcessor implements ItemProcessor<DailyTemperatureDocument, DailyTemperature> {
-        private final AtomicInteger processedItems = new AtomicInteger();
-
-        @Override
-        public DailyTemperature process(DailyTemperatureDocument document) {
-            if (processedItems.getAndIncrement() % 100 == 0) {
-                log.info("{}: processed {} items", Thread.currentThread(), processedItems.get());
-            }
-            return DailyTemperature.builder()
-                    .date(document.getDate().toLocalDate().minusDays(1))          // due to Mongo timezone diff
-                    .morningTemperature(document.getMorningTemperature())
-                    .afternoonTemperature(document.getAfternoonTemperature())
-                    .eveningTemperature(document.getEveningTemperature())
-                    .nightTemperature(document.getNightTemperature())
-                    .build();
-        }
-    }
-
-    @Slf4j
-    @RequiredArgsConstructor
-    private static class MongoReader implements ItemReader<DailyTemperatureDocument> {
-
-        private final MongoItemReader<DailyTemperatureDocument> delegate;
-
-        @Override
-        public DailyTemperatureDocument read() throws Exception {
-            log.info("Read data: thread = {}", Thread.currentThread().getName());
-            return delegate.read();
-        }
-    }
 }
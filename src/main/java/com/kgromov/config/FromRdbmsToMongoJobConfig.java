@@ -1,64 +1,99 @@
 package com.kgromov.config;
 
+import com.kgromov.batch.BatchMetricsListener;
+import com.kgromov.batch.CityPartitioner;
+import com.kgromov.batch.DailyTemperatureRowMapper;
+import com.kgromov.batch.MongoBulkUpsertWriter;
+import com.kgromov.batch.WriteToMongoProcessor;
+import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperature;
 import com.kgromov.domain.DailyTemperatureDocument;
-import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.data.MongoItemWriter;
-import org.springframework.batch.item.database.JpaPagingItemReader;
-import org.springframework.batch.item.database.builder.JpaPagingItemReaderBuilder;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 
-import java.time.ZoneId;
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @Slf4j
 @RequiredArgsConstructor
 public class FromRdbmsToMongoJobConfig {
+    private final DataSource dataSource;
 
     @Bean
-    public JpaPagingItemReader<DailyTemperature> jpaReadAll(EntityManagerFactory entityManagerFactory) {
-        return new JpaPagingItemReaderBuilder<DailyTemperature>()
-                .name("rdbms-reader")
-                .entityManagerFactory(entityManagerFactory)
-                .queryString("select d from DailyTemperature d order by d.date ASC")
-                .pageSize(1000)
-                .build();
+    @StepScope
+    public CityPartitioner rdbmsArchivePartitioner(@Value("#{jobParameters[cities]}") String cities) {
+        List<City> partitionCities = CityPartitioner.parseCities(cities);
+        Map<String, Object> bounds = new NamedParameterJdbcTemplate(dataSource).queryForMap(
+                "select min(date) as startDate, max(date) as endDate from DailyTemperature where city in (:cities)",
+                Map.of("cities", partitionCities.stream().map(City::name).toList()));
+        LocalDate startDate = toLocalDate(bounds.get("startDate"));
+        LocalDate endDate = toLocalDate(bounds.get("endDate"));
+        log.info("Partition DailyTemperature of {} in [{}; {}]", partitionCities, startDate, endDate);
+        return new CityPartitioner(partitionCities, startDate, endDate);
+    }
+
+    @Bean
+    @StepScope
+    public JdbcPagingItemReader<DailyTemperature> jdbcPartitionReader(@Value("#{stepExecutionContext[city]}") String city,
+                                                                      @Value("#{stepExecutionContext[startDate]}") LocalDate startDate,
+                                                                      @Value("#{stepExecutionContext[endDate]}") LocalDate endDate) {
+        return DailyTemperatureRowMapper.pagingReader("rdbms-reader",
+                dataSource,
+                "where city = :city and date between :startDate and :endDate",
+                Map.of("city", city, "startDate", startDate, "endDate", endDate),
+                Map.of("date", Order.ASCENDING));
     }
 
+    // same stored date as the sync jobs, so rollups and delta sync see one convention
     @Bean
     public ItemProcessor<DailyTemperature, DailyTemperatureDocument> convertToDailyDocument() {
-        return entity -> DailyTemperatureDocument.builder()
-                .date(entity.getDate().atStartOfDay(ZoneId.of("UTC")).toLocalDateTime())
-                .morningTemperature(entity.getMorningTemperature())
-                .afternoonTemperature(entity.getAfternoonTemperature())
-                .eveningTemperature(entity.getEveningTemperature())
-                .nightTemperature(entity.getNightTemperature())
+        return WriteToMongoProcessor::toDocument;
+    }
+
+    @Bean
+    public Step exportFromRdbmsToMongoWorkerStep(JdbcPagingItemReader<DailyTemperature> jdbcPartitionReader,
+                                                 MongoBulkUpsertWriter mongoUpsertWriter,
+                                                 JobRepository jobRepository,
+                                                 BatchMetricsListener batchMetricsListener,
+                                                 PlatformTransactionManager transactionManager) {
+        return new StepBuilder("import-to-mongo-worker-step", jobRepository)
+                .<DailyTemperature, DailyTemperatureDocument>chunk(1000, transactionManager)
+                .reader(jdbcPartitionReader)
+                .processor(convertToDailyDocument())
+                .writer(mongoUpsertWriter)
+                .listener(batchMetricsListener)
                 .build();
     }
 
+    // one keyset reader per (city, date sub-range) partition, partitions run in parallel on the step executor
     @Bean
-    public Step exportFromRdbmsToMongoStep(JpaPagingItemReader<DailyTemperature> jpaReadAll,
-                                           MongoItemWriter<DailyTemperatureDocument> mongoItemWriter,
+    public Step exportFromRdbmsToMongoStep(CityPartitioner rdbmsArchivePartitioner,
+                                           Step exportFromRdbmsToMongoWorkerStep,
                                            JobRepository jobRepository,
-                                           PlatformTransactionManager transactionManager,
                                            @Qualifier("stepExecutor") TaskExecutor taskExecutor) {
         return new StepBuilder("import-to-mongo-step", jobRepository)
-                .<DailyTemperature, DailyTemperatureDocument>chunk(1000, transactionManager)
-                .reader(jpaReadAll)
-                .processor(convertToDailyDocument())
-                .writer(mongoItemWriter)
+                .partitioner(exportFromRdbmsToMongoWorkerStep.getName(), rdbmsArchivePartitioner)
+                .step(exportFromRdbmsToMongoWorkerStep)
+                .gridSize(Runtime.getRuntime().availableProcessors())
                 .taskExecutor(taskExecutor)
                 .build();
     }
@@ -70,4 +105,11 @@ public class FromRdbmsToMongoJobConfig {
                 .start(exportFromRdbmsToMongoStep)
                 .build();
     }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return value instanceof LocalDate date ? date : null;
+    }
 }
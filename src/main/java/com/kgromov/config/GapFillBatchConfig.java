@@ -0,0 +1,138 @@
+package com.kgromov.config;
+
+import com.kgromov.batch.BatchMetricsListener;
+import com.kgromov.batch.CityPartitioner;
+import com.kgromov.batch.FetchDayProcessor;
+import com.kgromov.batch.GapFillSummaryListener;
+import com.kgromov.batch.MissingDaysReader;
+import com.kgromov.batch.TemperatureWriter;
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import com.kgromov.service.TemperatureExtractor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Configuration
+public class GapFillBatchConfig {
+    private static final String WORKER_STEP = "fill-gaps-worker-step";
+
+    private final DataSource dataSource;
+    private final TemperatureWriter temperatureWriter;
+    private final TemperatureExtractor temperatureExtractor;
+
+    public GapFillBatchConfig(DataSource dataSource,
+                              TemperatureWriter temperatureWriter,
+                              @Qualifier("routingTemperatureExtractor") TemperatureExtractor temperatureExtractor) {
+        this.dataSource = dataSource;
+        this.temperatureWriter = temperatureWriter;
+        this.temperatureExtractor = temperatureExtractor;
+    }
+
+    // one partition per city; gaps of a city are filled sequentially
+    @Bean
+    @StepScope
+    public Partitioner gapFillPartitioner(@Value("#{jobParameters[cities]}") String cities) {
+        return CityPartitioner.byCity(CityPartitioner.parseCities(cities));
+    }
+
+    @Bean
+    @StepScope
+    public MissingDaysReader missingDaysReader(@Value("#{stepExecutionContext[city]}") String city) {
+        return new MissingDaysReader(dataSource, City.valueOf(city));
+    }
+
+    @Bean
+    @StepScope
+    public FetchDayProcessor fetchDayProcessor(@Value("#{stepExecutionContext[city]}") String city) {
+        return new FetchDayProcessor(City.valueOf(city), temperatureExtractor);
+    }
+
+    @Bean
+    @StepScope
+    public GapFillSummaryListener gapFillSummaryListener() {
+        return new GapFillSummaryListener();
+    }
+
+    @Bean
+    public Step fillGapsWorkerStep(MissingDaysReader missingDaysReader,
+                                   FetchDayProcessor fetchDayProcessor,
+                                   GapFillSummaryListener gapFillSummaryListener,
+                                   JobRepository jobRepository,
+                                   BatchMetricsListener batchMetricsListener,
+                                   PlatformTransactionManager transactionManager) {
+        return new StepBuilder(WORKER_STEP, jobRepository)
+                .<LocalDate, DailyTemperature>chunk(10, transactionManager)
+                .reader(missingDaysReader)
+                .processor(fetchDayProcessor)
+                .writer(temperatureWriter)
+                .listener((ItemWriteListener<DailyTemperature>) gapFillSummaryListener)
+                .listener((StepExecutionListener) gapFillSummaryListener)
+                .listener(batchMetricsListener)
+                .build();
+    }
+
+    @Bean
+    public Step fillGapsStep(@Qualifier("stepExecutor") TaskExecutor taskExecutor,
+                             Partitioner gapFillPartitioner,
+                             Step fillGapsWorkerStep,
+                             JobRepository jobRepository) {
+        return new StepBuilder("fill-gaps-step", jobRepository)
+                .partitioner(WORKER_STEP, gapFillPartitioner)
+                .step(fillGapsWorkerStep)
+                .taskExecutor(taskExecutor)
+                .listener(gapFillSummary())
+                .build();
+    }
+
+    @Bean
+    public Job gapFillJob(Step fillGapsStep, JobRepository jobRepository) {
+        return new JobBuilder("gap-fill-job", jobRepository)
+                .start(fillGapsStep)
+                .build();
+    }
+
+    // sums up partitions; recovered days per city end up in the job context as well
+    private static StepExecutionListener gapFillSummary() {
+        return new StepExecutionListener() {
+            @Override
+            public ExitStatus afterStep(StepExecution stepExecution) {
+                Map<String, String> recoveredByPartition = stepExecution.getJobExecution().getStepExecutions().stream()
+                        .filter(execution -> execution.getStepName().startsWith(WORKER_STEP + ":"))
+                        .filter(execution -> execution.getExecutionContext().containsKey(GapFillSummaryListener.RECOVERED_DAYS))
+                        .collect(Collectors.toMap(
+                                execution -> execution.getStepName().substring(WORKER_STEP.length() + 1),
+                                execution -> execution.getExecutionContext().getString(GapFillSummaryListener.RECOVERED_DAYS),
+                                (a, b) -> a,
+                                LinkedHashMap::new));
+                log.info("Gap fill: missing = {}, recovered = {}, not available = {}",
+                        stepExecution.getReadCount(), stepExecution.getWriteCount(), stepExecution.getFilterCount());
+                recoveredByPartition.forEach((partition, days) -> log.info("Gap fill: {} recovered [{}]", partition, days));
+                stepExecution.getJobExecution().getExecutionContext().put("recoveredDays", new LinkedHashMap<>(recoveredByPartition));
+                return stepExecution.getExitStatus();
+            }
+        };
+    }
+}
@@ -0,0 +1,9 @@
+package com.kgromov.config;
+
+import java.time.Duration;
+
+public record HttpClientSettings(int maxConnections,
+                                 int maxConnectionsPerHost,
+                                 Duration connectTimeout,
+                                 Duration responseTimeout,
+                                 Duration keepAlive) {}
@@ -1,9 +1,11 @@
 package com.kgromov.config;
 
+import com.kgromov.batch.MongoQueries;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.mongo.MongoProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,4 +29,10 @@ public class MongoDbConfig {
     public MongoTemplate mongoTemplate(MongoClient mongoClient, MongoProperties mongoProperties) throws Exception {
         return new MongoTemplate(mongoClient, mongoProperties.getDatabase());
     }
+
+    // before any job runner starts writing: MongoBulkUpsertWriter relies on the unique (city, date) key
+    @Bean
+    public SmartInitializingSingleton weatherArchiveIndexes(MongoTemplate mongoTemplate) {
+        return () -> MongoQueries.ensureIndexes(mongoTemplate);
+    }
 }
@@ -0,0 +1,101 @@
+package com.kgromov.config;
+
+import com.kgromov.batch.CityPartitioner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.integration.config.annotation.EnableBatchIntegration;
+import org.springframework.batch.integration.partition.RemotePartitioningManagerStepBuilderFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.messaging.MessageChannel;
+
+/*
+ * Manager side of remote partitioning: partitions are sent as StepExecutionRequests to '*PartitionRequests'
+ * and worker replies from '*PartitionReplies' are aggregated into the manager step.
+ * Every manager step has its own pair of channels: a reply channel round-robins between its subscribers,
+ * so a shared one would hand half of the replies to the aggregator of the other job.
+ * Out of the box the channels are in-JVM, so manager and workers run in one process;
+ * for several nodes replace them with channels bridged to a broker (same bean names).
+ * Workers have to share the job repository database with the manager.
+ */
+@Profile("remote-partitioning")
+@Configuration
+@EnableBatchIntegration
+@RequiredArgsConstructor
+public class RemotePartitioningConfig {
+    public static final String FETCH_WORKER_STEP = "remote-fetch-temperature-worker-step";
+    public static final String READ_FROM_MONGO_WORKER_STEP = "remote-read-from-mongo-worker-step";
+
+    private final RemotePartitioningManagerStepBuilderFactory managerStepBuilderFactory;
+
+    @Bean
+    @ConditionalOnMissingBean(name = "fetchPartitionRequests")
+    public MessageChannel fetchPartitionRequests(@Qualifier("stepExecutor") TaskExecutor taskExecutor) {
+        return new ExecutorChannel(taskExecutor);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "fetchPartitionReplies")
+    public MessageChannel fetchPartitionReplies() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "mongoPartitionRequests")
+    public MessageChannel mongoPartitionRequests(@Qualifier("stepExecutor") TaskExecutor taskExecutor) {
+        return new ExecutorChannel(taskExecutor);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "mongoPartitionReplies")
+    public MessageChannel mongoPartitionReplies() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    public Step remoteFetchTemperatureStep(CityPartitioner cityPartitioner,
+                                           MessageChannel fetchPartitionRequests,
+                                           MessageChannel fetchPartitionReplies) {
+        return managerStepBuilderFactory.get("remote-fetch-temperature-step")
+                .partitioner(FETCH_WORKER_STEP, cityPartitioner)
+                .gridSize(Runtime.getRuntime().availableProcessors())
+                .outputChannel(fetchPartitionRequests)
+                .inputChannel(fetchPartitionReplies)
+                .build();
+    }
+
+    @Bean
+    public Step remoteReadFromMongoStep(CityPartitioner mongoArchivePartitioner,
+                                        MessageChannel mongoPartitionRequests,
+                                        MessageChannel mongoPartitionReplies) {
+        return managerStepBuilderFactory.get("remote-read-from-mongo-step")
+                .partitioner(READ_FROM_MONGO_WORKER_STEP, mongoArchivePartitioner)
+                .gridSize(Runtime.getRuntime().availableProcessors())
+                .outputChannel(mongoPartitionRequests)
+                .inputChannel(mongoPartitionReplies)
+                .build();
+    }
+
+    @Bean
+    public Job remoteFetchTemperatureJob(Step remoteFetchTemperatureStep, JobRepository jobRepository) {
+        return new JobBuilder("remote-fetch-temperature-job", jobRepository)
+                .start(remoteFetchTemperatureStep)
+                .build();
+    }
+
+    @Bean
+    public Job remoteReadFromMongoJob(Step remoteReadFromMongoStep, JobRepository jobRepository) {
+        return new JobBuilder("remote-read-from-mongo-job", jobRepository)
+                .start(remoteReadFromMongoStep)
+                .build();
+    }
+}
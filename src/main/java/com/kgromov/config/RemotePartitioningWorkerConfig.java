@@ -0,0 +1,72 @@
+package com.kgromov.config;
+
+import com.kgromov.batch.BatchMetricsListener;
+import com.kgromov.batch.MongoKeysetItemReader;
+import com.kgromov.batch.TemperatureReader;
+import com.kgromov.batch.TemperatureWriter;
+import com.kgromov.domain.DailyTemperature;
+import com.kgromov.domain.DailyTemperatureDocument;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.integration.partition.RemotePartitioningWorkerStepBuilderFactory;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static com.kgromov.config.RemotePartitioningConfig.FETCH_WORKER_STEP;
+import static com.kgromov.config.RemotePartitioningConfig.READ_FROM_MONGO_WORKER_STEP;
+
+/*
+ * Worker side of remote partitioning: executes partitions received from '*PartitionRequests'
+ * and replies to '*PartitionReplies' of the same manager step.
+ * Turn off with weather.partitioning.worker=false on manager-only nodes.
+ * Bean names have to match step names - workers look steps up by the name sent by the manager.
+ */
+@Profile("remote-partitioning")
+@ConditionalOnProperty(prefix = "weather.partitioning", name = "worker", havingValue = "true", matchIfMissing = true)
+@Configuration
+@RequiredArgsConstructor
+public class RemotePartitioningWorkerConfig {
+    private final RemotePartitioningWorkerStepBuilderFactory workerStepBuilderFactory;
+
+    @Bean(FETCH_WORKER_STEP)
+    public Step remoteFetchTemperatureWorkerStep(TemperatureReader temperatureReader,
+                                                 TemperatureWriter temperatureWriter,
+                                                 MessageChannel fetchPartitionRequests,
+                                                 MessageChannel fetchPartitionReplies,
+                                                 BatchMetricsListener batchMetricsListener,
+                                                 PlatformTransactionManager transactionManager) {
+        return workerStepBuilderFactory.get(FETCH_WORKER_STEP)
+                .inputChannel(fetchPartitionRequests)
+                .outputChannel(fetchPartitionReplies)
+                .<DailyTemperature, DailyTemperature>chunk(10, transactionManager)
+                .reader(temperatureReader)
+                .writer(temperatureWriter)
+                .listener(batchMetricsListener)
+                .build();
+    }
+
+    @Bean(READ_FROM_MONGO_WORKER_STEP)
+    public Step remoteReadFromMongoWorkerStep(MongoKeysetItemReader<DailyTemperatureDocument> mongoKeysetReader,
+                                              ItemProcessor<DailyTemperatureDocument, DailyTemperature> fromMongoProcessor,
+                                              ItemWriter<DailyTemperature> mongoToJdbcWriter,
+                                              MessageChannel mongoPartitionRequests,
+                                              MessageChannel mongoPartitionReplies,
+                                              BatchMetricsListener batchMetricsListener,
+                                              PlatformTransactionManager transactionManager) {
+        return workerStepBuilderFactory.get(READ_FROM_MONGO_WORKER_STEP)
+                .inputChannel(mongoPartitionRequests)
+                .outputChannel(mongoPartitionReplies)
+                .<DailyTemperatureDocument, DailyTemperature>chunk(1000, transactionManager)
+                .reader(mongoKeysetReader)
+                .processor(fromMongoProcessor)
+                .writer(mongoToJdbcWriter)
+                .listener(batchMetricsListener)
+                .build();
+    }
+}
@@ -0,0 +1,11 @@
+package com.kgromov.config;
+
+import java.time.Duration;
+
+public record ResilienceSettings(int maxAttempts,
+                                 Duration initialBackoff,
+                                 Duration maxBackoff,
+                                 Duration targetLatency,
+                                 double minRequestsPerSecond,
+                                 int failureThreshold,
+                                 Duration openDuration) {}
@@ -0,0 +1,36 @@
+package com.kgromov.config;
+
+import com.kgromov.service.TemperatureRollupService;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// full rebuild of daily stats and monthly/yearly rollups, e.g. after import-to-mongo or import-snapshot jobs
+@Configuration
+public class RollupBatchConfig {
+
+    @Bean
+    public Step rebuildRollupsStep(TemperatureRollupService rollupService,
+                                   JobRepository jobRepository,
+                                   PlatformTransactionManager transactionManager) {
+        return new StepBuilder("rebuild-rollups-step", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    rollupService.rebuild();
+                    return RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+    }
+
+    @Bean
+    public Job rebuildRollupsJob(Step rebuildRollupsStep, JobRepository jobRepository) {
+        return new JobBuilder("rebuild-rollups-job", jobRepository)
+                .start(rebuildRollupsStep)
+                .build();
+    }
+}
@@ -0,0 +1,9 @@
+package com.kgromov.config;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+public record RoutingSettings(LocalDate meteopostFrom,
+                              LocalDate meteopostTo,
+                              LocalDate sinoptikFrom,
+                              Duration hedgeDelay) {}
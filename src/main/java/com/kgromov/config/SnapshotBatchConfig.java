@@ -0,0 +1,122 @@
+package com.kgromov.config;
+
+import com.kgromov.batch.BatchMetricsListener;
+import com.kgromov.batch.DailyTemperatureRowMapper;
+import com.kgromov.batch.MongoBulkUpsertWriter;
+import com.kgromov.batch.TemperatureSnapshotReader;
+import com.kgromov.batch.TemperatureSnapshotWriter;
+import com.kgromov.batch.TemperatureWriter;
+import com.kgromov.batch.WriteToMongoProcessor;
+import com.kgromov.domain.DailyTemperature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Moves the whole DailyTemperature history between environments as one compact snapshot file (see TemperatureSnapshotFormat).
+ * export-snapshot-job: MySQL -> file; import-snapshot-job: file -> MySQL or weather_archive (target = MYSQL | MONGO).
+ * Both take the file job parameter, weather-archive.wts by default.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class SnapshotBatchConfig {
+    private final DataSource dataSource;
+    private final TemperatureWriter temperatureWriter;
+    private final MongoBulkUpsertWriter mongoUpsertWriter;
+
+    /*
+     * (city, date) order gives one block per city run and one byte date deltas.
+     * No saved state: the writer starts the file over on open, so a restarted export has to re-read every row.
+     */
+    @Bean
+    @StepScope
+    public JdbcPagingItemReader<DailyTemperature> snapshotSourceReader() {
+        Map<String, Order> sortKeys = new LinkedHashMap<>();
+        sortKeys.put("city", Order.ASCENDING);
+        sortKeys.put("date", Order.ASCENDING);
+        JdbcPagingItemReader<DailyTemperature> reader =
+                DailyTemperatureRowMapper.pagingReader("snapshot-source-reader", dataSource, null, Map.of(), sortKeys);
+        reader.setSaveState(false);
+        return reader;
+    }
+
+    @Bean
+    @StepScope
+    public TemperatureSnapshotWriter snapshotWriter(@Value("#{jobParameters[file] ?: 'weather-archive.wts'}") String file) {
+        return new TemperatureSnapshotWriter(Path.of(file));
+    }
+
+    @Bean
+    public Step exportSnapshotStep(JdbcPagingItemReader<DailyTemperature> snapshotSourceReader,
+                                   TemperatureSnapshotWriter snapshotWriter,
+                                   JobRepository jobRepository,
+                                   BatchMetricsListener batchMetricsListener,
+                                   PlatformTransactionManager transactionManager) {
+        return new StepBuilder("export-snapshot-step", jobRepository)
+                .<DailyTemperature, DailyTemperature>chunk(1000, transactionManager)
+                .reader(snapshotSourceReader)
+                .writer(snapshotWriter)
+                .listener(batchMetricsListener)
+                .build();
+    }
+
+    @Bean
+    public Job exportSnapshotJob(Step exportSnapshotStep, JobRepository jobRepository) {
+        return new JobBuilder("export-snapshot-job", jobRepository)
+                .start(exportSnapshotStep)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public TemperatureSnapshotReader snapshotReader(@Value("#{jobParameters[file] ?: 'weather-archive.wts'}") String file) {
+        return new TemperatureSnapshotReader(Path.of(file));
+    }
+
+    @Bean
+    @StepScope
+    public ItemWriter<DailyTemperature> snapshotTargetWriter(@Value("#{jobParameters[target] ?: 'MYSQL'}") String target) {
+        if (!"MONGO".equalsIgnoreCase(target)) {
+            return temperatureWriter;
+        }
+        return chunk -> mongoUpsertWriter.write(new Chunk<>(chunk.getItems().stream().map(WriteToMongoProcessor::toDocument).toList()));
+    }
+
+    @Bean
+    public Step importSnapshotStep(TemperatureSnapshotReader snapshotReader,
+                                   ItemWriter<DailyTemperature> snapshotTargetWriter,
+                                   JobRepository jobRepository,
+                                   BatchMetricsListener batchMetricsListener,
+                                   PlatformTransactionManager transactionManager) {
+        return new StepBuilder("import-snapshot-step", jobRepository)
+                .<DailyTemperature, DailyTemperature>chunk(1000, transactionManager)
+                .reader(snapshotReader)
+                .writer(snapshotTargetWriter)
+                .listener(batchMetricsListener)
+                .build();
+    }
+
+    @Bean
+    public Job importSnapshotJob(Step importSnapshotStep, JobRepository jobRepository) {
+        return new JobBuilder("import-snapshot-job", jobRepository)
+                .start(importSnapshotStep)
+                .build();
+    }
+}
@@ -1,69 +1,81 @@
 package com.kgromov.config;
 
+import com.kgromov.batch.BatchMetricsListener;
+import com.kgromov.batch.CityPartitioner;
+import com.kgromov.batch.DailyTemperatureRowMapper;
+import com.kgromov.batch.MongoBulkUpsertWriter;
+import com.kgromov.batch.MongoKeysetItemReader;
+import com.kgromov.batch.MongoQueries;
 import com.kgromov.batch.MongoSyncDatesReaderTasklet;
+import com.kgromov.batch.RollupRefreshListener;
+import com.kgromov.batch.SyncWatermarkListener;
 import com.kgromov.batch.WriteToMongoProcessor;
+import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperature;
 import com.kgromov.domain.DailyTemperatureDocument;
-import jakarta.persistence.EntityManagerFactory;
+import com.kgromov.service.SyncWatermarkService;
+import com.kgromov.service.TemperatureRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.FlowBuilder;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.data.MongoItemReader;
-import org.springframework.batch.item.data.MongoItemWriter;
-import org.springframework.batch.item.data.builder.MongoItemReaderBuilder;
-import org.springframework.batch.item.data.builder.MongoItemWriterBuilder;
-import org.springframework.batch.item.database.JpaPagingItemReader;
-import org.springframework.batch.item.database.builder.JpaPagingItemReaderBuilder;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.sql.DataSource;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-
-import static java.time.format.DateTimeFormatter.ISO_DATE;
-import static org.springframework.data.domain.Sort.Direction.ASC;
+import java.util.Optional;
 
 @Configuration
 @Slf4j
 @RequiredArgsConstructor
 public class SyncTemperatureBatchConfig {
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(5);
 
     // step 1 - fetch data from input source - defined outside
 
     // step 2 - fetch data to sync in target db
     @Bean
     @StepScope
-    public MongoItemReader<DailyTemperatureDocument> syncDatesReader(MongoTemplate mongoTemplate,
-                                                                     @Value("#{jobParameters[syncStartDate]}") LocalDate syncStartDate) {
-        return new MongoItemReaderBuilder<DailyTemperatureDocument>()
+    public MongoKeysetItemReader<DailyTemperatureDocument> syncDatesReader(MongoTemplate mongoTemplate,
+                                                                           @Value("#{jobParameters[syncStartDate]}") LocalDate syncStartDate) {
+        return MongoKeysetItemReader.<DailyTemperatureDocument>builder()
                 .name("mongo-dates-to-sync-reader")
                 .template(mongoTemplate)
-                .collection("weather_archive")
-                .jsonQuery("{date: {$gt: ISODate('" + syncStartDate.format(ISO_DATE) + "')}}")
-                // TODO: simply does not executed when using parameterValues resolver (aka PreparedStatement)
-                /*   .jsonQuery("{date: {$gt: ?0}}")
-                   .parameterValues(syncStartDate.format(ISO_DATE_TIME))*/
-                .fields("{'date': 1, '_id': 0}")
-                .sorts(Map.of("date", ASC))
+                .collection(MongoQueries.WEATHER_ARCHIVE)
+                .criteria(Criteria.where("date").gt(syncStartDate.atStartOfDay()))
+                .fields(List.of("city", "date"))
                 .targetType(DailyTemperatureDocument.class)
                 .pageSize(1000)
                 .build();
     }
 
     @Bean
-    public MongoSyncDatesReaderTasklet syncDatesReaderTasklet(MongoItemReader<DailyTemperatureDocument> syncDatesReader) {
+    public MongoSyncDatesReaderTasklet syncDatesReaderTasklet(MongoKeysetItemReader<DailyTemperatureDocument> syncDatesReader) {
         return new MongoSyncDatesReaderTasklet(syncDatesReader);
     }
 
@@ -83,16 +95,16 @@ public class SyncTemperatureBatchConfig {
      */
     @Bean
     @StepScope
-    @Lazy
-    public JpaPagingItemReader<DailyTemperature> jpaPagingItemReader(EntityManagerFactory entityManagerFactory,
-                                                                     @Value("#{jobParameters[syncStartDate]}") LocalDate syncStartDate) {
-        return new JpaPagingItemReaderBuilder<DailyTemperature>()
-                .name("rdbms-paging-reader")
-                .entityManagerFactory(entityManagerFactory)
-                .queryString("select d from DailyTemperature d where d.date >= :syncStartDate order by d.date ASC")
-                .parameterValues(Map.of("syncStartDate", syncStartDate))
-                .pageSize(1000)
-                .build();
+    public JdbcPagingItemReader<DailyTemperature> jdbcPagingItemReader(DataSource dataSource,
+                                                                       @Value("#{jobParameters[syncStartDate]}") LocalDate syncStartDate) {
+        Map<String, Order> sortKeys = new LinkedHashMap<>();
+        sortKeys.put("date", Order.ASCENDING);
+        sortKeys.put("city", Order.ASCENDING);
+        return DailyTemperatureRowMapper.pagingReader("rdbms-paging-reader",
+                dataSource,
+                "where date >= :syncStartDate",
+                Map.of("syncStartDate", syncStartDate),
+                sortKeys);
     }
 
     @Bean
@@ -101,50 +113,130 @@ public class SyncTemperatureBatchConfig {
     }
 
     @Bean
-    public MongoItemWriter<DailyTemperatureDocument> mongoItemWriter(MongoTemplate mongoTemplate) {
-        return new MongoItemWriterBuilder<DailyTemperatureDocument>()
-                .collection("weather_archive")
-                .template(mongoTemplate)
-                .build();
+    public MongoBulkUpsertWriter mongoUpsertWriter(MongoTemplate mongoTemplate) {
+        return new MongoBulkUpsertWriter(mongoTemplate, MongoQueries.WEATHER_ARCHIVE);
+    }
+
+    // monthly/yearly rollups of the written months are recomputed when a step appending to Mongo ends
+    @Bean
+    @StepScope
+    public RollupRefreshListener rollupRefreshListener(TemperatureRollupService rollupService) {
+        return new RollupRefreshListener(rollupService);
     }
 
     @Bean
-    public Step appendToMongo(JpaPagingItemReader<DailyTemperature> jpaPagingItemReader,
-                                 MongoItemWriter<DailyTemperatureDocument> mongoItemWriter,
+    public Step appendToMongo(JdbcPagingItemReader<DailyTemperature> jdbcPagingItemReader,
+                                 MongoBulkUpsertWriter mongoUpsertWriter,
+                                 RollupRefreshListener rollupRefreshListener,
                                  JobRepository jobRepository,
+                                 BatchMetricsListener batchMetricsListener,
                                  PlatformTransactionManager transactionManager) {
         return new StepBuilder("append-to-mongo-step", jobRepository)
                 .<DailyTemperature, DailyTemperatureDocument>chunk(1000, transactionManager)
-                .reader(jpaPagingItemReader)
+                .reader(jdbcPagingItemReader)
                 .processor(toMongoProcessor())
-                .writer(mongoItemWriter)
+                .writer(mongoUpsertWriter)
+                .listener(batchMetricsListener)
+                .listener((ItemWriteListener<DailyTemperatureDocument>) rollupRefreshListener)
+                .listener((StepExecutionListener) rollupRefreshListener)
 //                .taskExecutor(taskExecutor)  // make no sense for not reactive driver
                 .build();
     }
 
+    /* delta sync - cost is proportional to changed rows, not to the archive size
+     * reader       - rows of a city written after its watermark (latest synced updatedAt), whatever their date
+     * processor    - convert from Entity to Document
+     * writer       - upsert, so overlapping with already synced rows is harmless
+     * the watermark is advanced when the city partition completes
+     */
+    @Bean
+    @StepScope
+    public JdbcPagingItemReader<DailyTemperature> deltaSyncReader(DataSource dataSource,
+                                                                  SyncWatermarkService watermarkService,
+                                                                  @Value("#{stepExecutionContext[city]}") String cityName) {
+        City city = City.valueOf(cityName);
+        // no watermark yet: the whole city once; then re-read a short overlap for writes that committed late
+        Optional<LocalDateTime> watermark = watermarkService.getLastSyncedUpdate(city)
+                .map(lastUpdate -> lastUpdate.minus(SYNC_OVERLAP));
+        log.info("{}: sync rows written after {}", city, watermark.map(LocalDateTime::toString).orElse("the beginning"));
+        Map<String, Object> parameterValues = new HashMap<>();
+        parameterValues.put("city", city.name());
+        watermark.ifPresent(updatedAt -> parameterValues.put("watermark", updatedAt));
+        Map<String, Order> sortKeys = new LinkedHashMap<>();
+        sortKeys.put("updatedAt", Order.ASCENDING);
+        sortKeys.put("date", Order.ASCENDING);
+        return DailyTemperatureRowMapper.pagingReader("delta-sync-reader",
+                dataSource,
+                watermark.isPresent() ? "where city = :city and updatedAt > :watermark" : "where city = :city",
+                parameterValues,
+                sortKeys);
+    }
+
+    @Bean
+    @StepScope
+    public SyncWatermarkListener syncWatermarkListener(SyncWatermarkService watermarkService,
+                                                       @Value("#{stepExecutionContext[city]}") String city) {
+        return new SyncWatermarkListener(City.valueOf(city), watermarkService);
+    }
+
+    @Bean
+    public Step deltaSyncToMongoWorkerStep(JdbcPagingItemReader<DailyTemperature> deltaSyncReader,
+                                           SyncWatermarkListener syncWatermarkListener,
+                                           RollupRefreshListener rollupRefreshListener,
+                                           MongoBulkUpsertWriter mongoUpsertWriter,
+                                           JobRepository jobRepository,
+                                           BatchMetricsListener batchMetricsListener,
+                                           PlatformTransactionManager transactionManager) {
+        return new StepBuilder("delta-sync-to-mongo-worker-step", jobRepository)
+                .<DailyTemperature, DailyTemperatureDocument>chunk(1000, transactionManager)
+                .reader(deltaSyncReader)
+                .processor(toMongoProcessor())
+                .writer(mongoUpsertWriter)
+                .listener((ItemProcessListener<DailyTemperature, DailyTemperatureDocument>) syncWatermarkListener)
+                .listener((StepExecutionListener) syncWatermarkListener)
+                .listener((ItemWriteListener<DailyTemperatureDocument>) rollupRefreshListener)
+                .listener((StepExecutionListener) rollupRefreshListener)
+                .listener(batchMetricsListener)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public Partitioner deltaSyncPartitioner(@Value("#{jobParameters[cities]}") String cities) {
+        return CityPartitioner.byCity(CityPartitioner.parseCities(cities));
+    }
+
+    @Bean
+    public Step deltaSyncToMongoStep(Partitioner deltaSyncPartitioner,
+                                     Step deltaSyncToMongoWorkerStep,
+                                     @Qualifier("stepExecutor") TaskExecutor taskExecutor,
+                                     JobRepository jobRepository) {
+        return new StepBuilder("delta-sync-to-mongo-step", jobRepository)
+                .partitioner(deltaSyncToMongoWorkerStep.getName(), deltaSyncPartitioner)
+                .step(deltaSyncToMongoWorkerStep)
+                .taskExecutor(taskExecutor)
+                .build();
+    }
+
     @Bean
     public Job syncTemperatureJob(Step fetchTemperatureStep,
-                                  Step readDatesToSyncStep,
-                                  Step appendToMongo,
+                                  Step deltaSyncToMongoStep,
                                   JobRepository jobRepository) {
         return new JobBuilder("writeToMongoJob", jobRepository)
-                // seems 1st and 2nd can be added to Flow to be processed in parallel
                 .start(fetchTemperatureStep)
-                .next(readDatesToSyncStep)
-                .next(appendToMongo)
+                .next(deltaSyncToMongoStep)
                 .build();
     }
 
     @Bean
-    public Job fromMysqlToMongo(Step readDatesToSyncStep,
-                                Step appendToMongo,
+    public Job fromMysqlToMongo(Step deltaSyncToMongoStep,
                                 JobRepository jobRepository) {
         return new JobBuilder("writeToMongoJob", jobRepository)
-                .start(readDatesToSyncStep)
-                .next(appendToMongo)
+                .start(deltaSyncToMongoStep)
                 .build();
     }
 
+    // full reconciliation: compares all dates after syncStartDate in both stores
     @Bean
     public Job syncTemperatureParallelJob(Step fetchTemperatureStep,
                                           Step readDatesToSyncStep,
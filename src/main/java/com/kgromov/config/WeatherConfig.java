@@ -1,30 +1,110 @@
 package com.kgromov.config;
 
+import com.kgromov.service.WeatherHttpClient;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
 import lombok.AccessLevel;
 import lombok.Setter;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.jsoup.helper.HttpConnection;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
 
 @Setter(AccessLevel.PACKAGE)
 @Configuration
 @ConfigurationProperties("weather")
 public class WeatherConfig {
     private WeatherSource source;
+    private FetchSettings fetch;
+    private HttpClientSettings http;
+    private ArchiveSettings archive;
+    private RoutingSettings routing;
+    private ResilienceSettings resilience;
+    private ApiSettings api;
 
     @Bean
     WeatherSource weatherSource() {
         return source;
     }
 
-    @Qualifier("meteopostTemplateBuilder")
     @Bean
-    RestTemplateBuilder restTemplateBuilder(WeatherSource weatherSource) {
-        return new RestTemplateBuilder()
-                .rootUri(weatherSource.meteopostUrl())
-                .defaultHeader("Content-Type", MediaType.APPLICATION_FORM_URLENCODED.toString());
+    FetchSettings fetchSettings() {
+        return fetch;
+    }
+
+    // one pool for the range fetches of all partitions and callers: maxInFlight caps concurrent fetches process-wide,
+    // the rest wait in the queue instead of piling up on the per-source rate limiters
+    @Bean
+    ThreadPoolTaskExecutor fetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(fetch.maxInFlight());
+        executor.setMaxPoolSize(fetch.maxInFlight());
+        executor.setThreadNamePrefix("fetch-");
+        return executor;
+    }
+
+    @Bean
+    MeterBinder fetchExecutorMetrics(@Qualifier("fetchExecutor") ThreadPoolTaskExecutor fetchExecutor) {
+        return registry -> new ExecutorServiceMetrics(fetchExecutor.getThreadPoolExecutor(), "fetchExecutor", List.of())
+                .bindTo(registry);
+    }
+
+    @Bean
+    ArchiveSettings archiveSettings() {
+        return archive;
+    }
+
+    @Bean
+    RoutingSettings routingSettings() {
+        return routing;
+    }
+
+    @Bean
+    ResilienceSettings resilienceSettings() {
+        return resilience;
+    }
+
+    @Bean
+    ApiSettings apiSettings() {
+        return api;
+    }
+
+    @Bean(destroyMethod = "close")
+    WeatherHttpClient weatherHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.maxConnections())
+                .setMaxConnPerRoute(http.maxConnectionsPerHost())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.responseTimeout()))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "weather-sources")
+                .bindTo(Metrics.globalRegistry);
+        var httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.of(http.responseTimeout()))
+                        .setConnectionKeepAlive(TimeValue.of(http.keepAlive()))
+                        .build())
+                .setDefaultHeaders(List.of(new BasicHeader(HttpHeaders.USER_AGENT, HttpConnection.DEFAULT_UA)))
+                .evictIdleConnections(TimeValue.of(http.keepAlive()))
+                .build();
+        return new WeatherHttpClient(httpClient, connectionManager);
     }
 }
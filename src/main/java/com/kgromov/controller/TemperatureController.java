@@ -0,0 +1,71 @@
+package com.kgromov.controller;
+
+import com.kgromov.domain.City;
+import com.kgromov.dtos.JsonSnapshot;
+import com.kgromov.service.TemperatureHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+/*
+ * GET /api/temperature/{city}?from=2023-01-01&to=2023-01-31  days of the range
+ * GET /api/temperature/{city}/latest                         latest stored day
+ * GET /api/temperature/{city}/history?date=2023-03-15&years=10  the same day in the past years
+ * Answers carry an ETag: a matching If-None-Match gets 304 without a body.
+ */
+@RestController
+@RequestMapping("/api/temperature/{city}")
+@RequiredArgsConstructor
+public class TemperatureController {
+    private final TemperatureHistoryService historyService;
+
+    @GetMapping
+    public ResponseEntity<byte[]> getRange(@PathVariable City city,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                           WebRequest request) {
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(BAD_REQUEST, "'to' is before 'from'");
+        }
+        return respond(historyService.getRange(city, from, to), request);
+    }
+
+    @GetMapping("/latest")
+    public ResponseEntity<byte[]> getLatest(@PathVariable City city, WebRequest request) {
+        JsonSnapshot latest = historyService.getLatest(city);
+        return latest == null ? ResponseEntity.notFound().build() : respond(latest, request);
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<byte[]> getSameDayInPastYears(@PathVariable City city,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                        @RequestParam(defaultValue = "10") int years,
+                                                        WebRequest request) {
+        if (years < 1) {
+            throw new ResponseStatusException(BAD_REQUEST, "'years' must be positive");
+        }
+        return respond(historyService.getSameDayInPastYears(city, date, years), request);
+    }
+
+    // checkNotModified sets the ETag header (304 on a match); the cached body is written as is, without serialization
+    private static ResponseEntity<byte[]> respond(JsonSnapshot snapshot, WebRequest request) {
+        if (request.checkNotModified(snapshot.eTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.body());
+    }
+}
@@ -1,17 +1,25 @@
 package com.kgromov.domain;
 
 public enum City {
-    ODESSA("odessa", 111, "погода-одеса");
+    ODESSA("odessa", 111, "погода-одеса", "UKOO"),
+    KYIV("kyiv", 0, "погода-київ", "UKKK"),
+    LVIV("lviv", 0, "погода-львів", "UKLL"),
+    KHARKIV("kharkiv", 0, "погода-харків", "UKHH"),
+    DNIPRO("dnipro", 0, "погода-дніпро", "UKDD");
 
     private final String name;
+    // legacy id, known for Odessa only
     private final int code;
 
     private final String keyWord;
+    // ICAO code of the city airport, used as city id by meteopost
+    private final String meteopostCode;
 
-    City(String name, int code, String keyWord) {
+    City(String name, int code, String keyWord, String meteopostCode) {
         this.name = name;
         this.code = code;
         this.keyWord = keyWord;
+        this.meteopostCode = meteopostCode;
     }
 
     public String getName() {
@@ -26,6 +34,10 @@ public enum City {
         return keyWord;
     }
 
+    public String getMeteopostCode() {
+        return meteopostCode;
+    }
+
     @Override
     public String toString() {
         return getName();
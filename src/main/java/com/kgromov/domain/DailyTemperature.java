@@ -5,19 +5,26 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "DailyTemperature")
+@Table(name = "DailyTemperature",
+        uniqueConstraints = @UniqueConstraint(name = "uk_city_date", columnNames = {"city", "date"}),
+        indexes = @Index(name = "idx_city_updated_at", columnList = "city, updatedAt"))
 @Data
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
-@EqualsAndHashCode(of = {"id", "date"})
+@EqualsAndHashCode(of = {"id", "city", "date"})
 @Builder
 public class DailyTemperature {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    @JoinColumn(unique = true)
+    // rows created before cities were introduced are Odessa
+    @Enumerated(EnumType.STRING)
+    @Column(name = "city", nullable = false, columnDefinition = "varchar(32) default 'ODESSA'")
+    @Builder.Default
+    private City city = City.ODESSA;
     private LocalDate date;
     @Column(name = "morningTemperature")
     private Double morningTemperature;
@@ -27,8 +34,13 @@ public class DailyTemperature {
     private Double eveningTemperature;
     @Column(name = "nightTemperature")
     private Double nightTemperature;
+    // maintained by MySQL on every insert and every write that changes the row, whichever path writes it
+    @Column(name = "updatedAt", insertable = false, updatable = false,
+            columnDefinition = "timestamp(6) not null default current_timestamp(6) on update current_timestamp(6)")
+    private LocalDateTime updatedAt;
 
-    public DailyTemperature(TemperatureMeasurementsDto temperatureMeasurementsDto) {
+    public DailyTemperature(City city, TemperatureMeasurementsDto temperatureMeasurementsDto) {
+        this.city = city;
         this.date = temperatureMeasurementsDto.getDate();
         this.morningTemperature = temperatureMeasurementsDto.getMorningTemperature();
         this.afternoonTemperature = temperatureMeasurementsDto.getAfternoonTemperature();
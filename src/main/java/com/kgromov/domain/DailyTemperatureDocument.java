@@ -3,43 +3,85 @@ package com.kgromov.domain;
 import lombok.*;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
-import java.util.stream.DoubleStream;
 
-@Document
+// unique (city, date) index is ensured by MongoQueries.ensureIndexes, auto index creation is off
+@Document("weather_archive")
 @Data
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
-@EqualsAndHashCode(of = {"_id", "date"})
+@EqualsAndHashCode(of = {"_id", "city", "date"})
 @Builder
 public class DailyTemperatureDocument {
     @Id
     private ObjectId _id;
-    @Indexed(unique = true)
+    private City city;
     private LocalDateTime date;
     private Double morningTemperature;
     private Double afternoonTemperature;
     private Double eveningTemperature;
     private Double nightTemperature;
+    // daily stats over the parts of the day that have a value, null when none has; persisted for rollups and queries
+    private Double min;
+    private Double max;
+    private Double average;
 
+    // documents written before cities were introduced have no city and are Odessa
+    public City getCity() {
+        return city != null ? city : City.ODESSA;
+    }
+
+    // documents written before the stats were persisted get them computed on the fly
     public Double getMax() {
-        return DoubleStream.of(morningTemperature, afternoonTemperature, eveningTemperature, nightTemperature)
-                .max()
-                .getAsDouble();
+        return max != null ? max : dailyMax();
     }
 
     public Double getMin() {
-        return DoubleStream.of(morningTemperature, afternoonTemperature, eveningTemperature, nightTemperature)
-                .min()
-                .getAsDouble();
+        return min != null ? min : dailyMin();
     }
 
     public Double getAverage() {
-        return DoubleStream.of(morningTemperature, afternoonTemperature, eveningTemperature, nightTemperature)
-                .average()
-                .getAsDouble();
+        return average != null ? average : dailyAverage();
+    }
+
+    // stats computed from the parts of the day only, whatever is stored
+    public Double dailyMax() {
+        return max(max(morningTemperature, afternoonTemperature), max(eveningTemperature, nightTemperature));
+    }
+
+    public Double dailyMin() {
+        return min(min(morningTemperature, afternoonTemperature), min(eveningTemperature, nightTemperature));
+    }
+
+    public Double dailyAverage() {
+        int count = count(morningTemperature) + count(afternoonTemperature) + count(eveningTemperature) + count(nightTemperature);
+        if (count == 0) {
+            return null;
+        }
+        return (valueOf(morningTemperature) + valueOf(afternoonTemperature) + valueOf(eveningTemperature) + valueOf(nightTemperature)) / count;
+    }
+
+    private static int count(Double temperature) {
+        return temperature == null ? 0 : 1;
+    }
+
+    private static double valueOf(Double temperature) {
+        return temperature == null ? 0 : temperature;
+    }
+
+    private static Double max(Double first, Double second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null || first >= second ? first : second;
+    }
+
+    private static Double min(Double first, Double second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null || first <= second ? first : second;
     }
 }
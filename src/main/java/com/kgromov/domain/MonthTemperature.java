@@ -1,9 +1,19 @@
 package com.kgromov.domain;
 
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.time.Month;
-
+// monthly rollup of weather_archive, _id = {city, year, month}; built by TemperatureRollupService
+@Document("month_temperature")
+@Data
+@NoArgsConstructor
 public class MonthTemperature {
-    private Month month;
-    private double temperature;
+    private City city;
+    private int year;
+    private int month;              // 1 - 12
+    private Double min;
+    private Double max;
+    private Double average;         // of daily averages
+    private int days;               // days with an average
 }
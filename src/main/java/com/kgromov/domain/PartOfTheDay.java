@@ -48,7 +48,18 @@ public enum PartOfTheDay {
         }
     };
 
-   public abstract LocalTime getStart();
+    public abstract LocalTime getStart();
 
     public abstract LocalTime getEnd();
+
+    // same bounds as getStart()/getEnd() in minutes: [00:00, 06:00) night, [06:00, 12:00) morning, [12:00, 18:00) afternoon, evening after
+    public static PartOfTheDay of(int minuteOfDay) {
+        if (minuteOfDay < 6 * 60) {
+            return NIGHT;
+        }
+        if (minuteOfDay < 12 * 60) {
+            return MORNING;
+        }
+        return minuteOfDay < 18 * 60 ? AFTERNOON : EVENING;
+    }
 }
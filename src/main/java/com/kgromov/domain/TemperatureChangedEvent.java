@@ -0,0 +1,4 @@
+package com.kgromov.domain;
+
+// published by MySQL writers after a batch of days is written, the read API drops its cached answers on commit
+public record TemperatureChangedEvent(int days) {}
@@ -0,0 +1,18 @@
+package com.kgromov.domain;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// yearly rollup built from MonthTemperature, _id = {city, year}
+@Document("year_temperature")
+@Data
+@NoArgsConstructor
+public class YearTemperature {
+    private City city;
+    private int year;
+    private Double min;
+    private Double max;
+    private Double average;         // of daily averages, months weighted by their days
+    private int days;
+}
@@ -1,5 +1,6 @@
 package com.kgromov.dtos;
 
+import com.kgromov.domain.City;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,6 +14,7 @@ import java.time.LocalDate;
 @Builder
 public class DailyTemperatureDto {
     private Long id;
+    private City city;
     private LocalDate date;
     private Double morningTemperature;
     private Double afternoonTemperature;
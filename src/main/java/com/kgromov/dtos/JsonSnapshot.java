@@ -0,0 +1,4 @@
+package com.kgromov.dtos;
+
+// serialized JSON answer of the read API together with its ETag, cached as is
+public record JsonSnapshot(byte[] body, String eTag) {}
@@ -1,24 +1,69 @@
 package com.kgromov.dtos;
 
 import com.kgromov.domain.PartOfTheDay;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Getter;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 import static com.kgromov.domain.PartOfTheDay.*;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+/*
+ * Measurements of a day as parallel minute-of-day/temperature arrays.
+ * Every measurement is added to the sum of its part of the day right away,
+ * so averages are a division with fixed-point rounding: no streams, boxing or BigDecimal.
+ */
 public class TemperatureMeasurementsDto {
-    private LocalDate date;
-    private List<WeatherMeasurementDto> dailyMeasurements;
+    private static final int INITIAL_CAPACITY = 48;     // meteopost: every 30 minutes
+
+    @Getter
+    private final LocalDate date;
+    private int[] minutes = new int[INITIAL_CAPACITY];
+    private int[] temperatures = new int[INITIAL_CAPACITY];
+    private int size;
+    private final long[] sums = new long[PartOfTheDay.values().length];
+    private final int[] counts = new int[PartOfTheDay.values().length];
+
+    public TemperatureMeasurementsDto(LocalDate date) {
+        this.date = date;
+    }
+
+    public void addMeasurement(int minuteOfDay, int temperature) {
+        if (size == minutes.length) {
+            minutes = Arrays.copyOf(minutes, size * 2);
+            temperatures = Arrays.copyOf(temperatures, size * 2);
+        }
+        minutes[size] = minuteOfDay;
+        temperatures[size] = temperature;
+        size++;
+        int part = PartOfTheDay.of(minuteOfDay).ordinal();
+        sums[part] += temperature;
+        counts[part]++;
+    }
+
+    public void addMeasurement(WeatherMeasurementDto measurement) {
+        addMeasurement(measurement.getTime().toSecondOfDay() / 60, measurement.getTemperature());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // allocates a list of the measurements: for checks and logs, not for aggregation
+    public List<WeatherMeasurementDto> getDailyMeasurements() {
+        List<WeatherMeasurementDto> measurements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            measurements.add(new WeatherMeasurementDto(LocalTime.ofSecondOfDay(minutes[i] * 60L), temperatures[i]));
+        }
+        return measurements;
+    }
 
     public double getMorningTemperature() {
         return getAvgTemperatureAtDayPart(MORNING);
@@ -36,26 +81,29 @@ public class TemperatureMeasurementsDto {
         return getAvgTemperatureAtDayPart(NIGHT);
     }
 
+    // average rounded HALF_UP to hundredths, 0.0 when there is no measurement in the part of the day
     private double getAvgTemperatureAtDayPart(PartOfTheDay partOfTheDay) {
-        LocalTime min = partOfTheDay.getStart();
-        LocalTime max = partOfTheDay.getEnd();
-        double temperature = dailyMeasurements.stream()
-                .filter(m -> m.getTime().compareTo(min) >= 0)
-                .filter(m -> m.getTime().isBefore(max))
-                .mapToInt(WeatherMeasurementDto::getTemperature)
-                .average()
-                .orElse(0.0);
-        return BigDecimal.valueOf(temperature).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        int count = counts[partOfTheDay.ordinal()];
+        if (count == 0) {
+            return 0.0;
+        }
+        long scaledSum = sums[partOfTheDay.ordinal()] * 100;
+        long hundredths = scaledSum / count;
+        long remainder = Math.abs(scaledSum % count);
+        if (remainder * 2 >= count) {
+            hundredths += Long.signum(scaledSum);
+        }
+        return hundredths / 100.0;
     }
 
     @Override
     public String toString() {
         return "TemperatureMeasurementsDto{" +
                 "date=" + date +
-                ", morning=" + BigDecimal.valueOf(this.getMorningTemperature()).setScale(2, RoundingMode.HALF_UP) +
-                ", afternoon=" + BigDecimal.valueOf(this.getAfternoonTemperature()).setScale(2, RoundingMode.HALF_UP) +
-                ", evening=" + BigDecimal.valueOf(this.getEveningTemperature()).setScale(2, RoundingMode.HALF_UP)  +
-                ", night=" + BigDecimal.valueOf(this.getNightTemperature()).setScale(2, RoundingMode.HALF_UP)  +
+                ", morning=" + getMorningTemperature() +
+                ", afternoon=" + getAfternoonTemperature() +
+                ", evening=" + getEveningTemperature() +
+                ", night=" + getNightTemperature() +
                 '}';
     }
 }
@@ -0,0 +1,44 @@
+package com.kgromov.repository;
+
+import com.kgromov.batch.MySqlBulkWriter;
+import com.kgromov.domain.DailyTemperature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.item.Chunk;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Upsert on the (city, date) unique key: IDENTITY ids disable Hibernate insert batching,
+ * so saveAll() costs a round trip per day. Rows go through MySqlBulkWriter's multi-row upsert,
+ * the one place the INSERT ... ON DUPLICATE KEY UPDATE statement is built.
+ */
+@Slf4j
+@Repository
+public class DailyTemperatureJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private final MySqlBulkWriter bulkWriter;
+
+    public DailyTemperatureJdbcRepository(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bulkWriter = new MySqlBulkWriter(jdbcTemplate.getDataSource(), MySqlBulkWriter.Mode.MULTI_ROW_UPSERT);
+        this.bulkWriter.setApplicationEventPublisher(eventPublisher);
+    }
+
+    public int upsert(Collection<? extends DailyTemperature> days) {
+        if (days.isEmpty()) {
+            return 0;
+        }
+        try {
+            bulkWriter.write(new Chunk<>(List.copyOf(days)));
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("upsert DailyTemperature", null, e);
+        }
+        log.debug("{}: upserted {} rows", Thread.currentThread().getName(), days.size());
+        return days.size();
+    }
+}
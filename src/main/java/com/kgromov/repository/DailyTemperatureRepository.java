@@ -1,5 +1,6 @@
 package com.kgromov.repository;
 
+import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperature;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -10,15 +11,19 @@ import java.util.List;
 public interface DailyTemperatureRepository extends JpaRepository<DailyTemperature, Long> {
     DailyTemperature findByDate(LocalDate date);
     List<DailyTemperature> findByDateBetween(LocalDate from, LocalDate to);
+    DailyTemperature findByCityAndDate(City city, LocalDate date);
+    List<DailyTemperature> findByCityAndDateBetween(City city, LocalDate from, LocalDate to);
+    List<DailyTemperature> findByCityAndDateBetweenOrderByDate(City city, LocalDate from, LocalDate to);
+    DailyTemperature findFirstByCityOrderByDateDesc(City city);
     @Query(
-            value = "SELECT * FROM DayTemperature d " +
+            value = "SELECT * FROM DailyTemperature d " +
                     "WHERE DAY(d.date) = DAY(?1) AND MONTH(d.date) = MONTH(?1)",
             nativeQuery = true
     )
     List<DailyTemperature> findByDateNative(LocalDate date);
 
     @Query(
-            value = "SELECT * FROM DayTemperature d " +
+            value = "SELECT * FROM DailyTemperature d " +
                     "WHERE DAY(d.date) = DAY(?1) AND MONTH(d.date) = MONTH(?1) " +
                     "ORDER BY d.date DESC " +
                     "LIMIT ?2",
@@ -27,7 +32,16 @@ public interface DailyTemperatureRepository extends JpaRepository<DailyTemperatu
     List<DailyTemperature> findByDateInRange(LocalDate date, int years);
 
     @Query(
-            value = "SELECT * FROM DayTemperature d " +
+            value = "SELECT * FROM DailyTemperature d " +
+                    "WHERE d.city = ?1 AND DAY(d.date) = DAY(?2) AND MONTH(d.date) = MONTH(?2) AND d.date <= ?2 " +
+                    "ORDER BY d.date DESC " +
+                    "LIMIT ?3",
+            nativeQuery = true
+    )
+    List<DailyTemperature> findSameDayInPastYears(String city, LocalDate date, int years);
+
+    @Query(
+            value = "SELECT * FROM DailyTemperature d " +
                     "ORDER BY d.date DESC " +
                     "LIMIT 1",
             nativeQuery = true
@@ -0,0 +1,77 @@
+package com.kgromov.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Paces requests to one host, AIMD style: every fast response adds a bit of rate back (up to the ceiling),
+ * a slow response or a failure halves it (down to the floor).
+ * Non-positive ceiling means unlimited.
+ */
+@Slf4j
+public class AdaptiveRateLimiter {
+    private static final double ADDITIVE_STEP = 0.1;
+    private final String host;
+    private final double maxPermitsPerSecond;
+    private final double minPermitsPerSecond;
+    private final long targetLatencyNanos;
+    private final Ticker ticker;
+    private double permitsPerSecond;
+    private long nextPermitAt;
+
+    public AdaptiveRateLimiter(String host, double maxPermitsPerSecond, double minPermitsPerSecond, Duration targetLatency) {
+        this(host, maxPermitsPerSecond, minPermitsPerSecond, targetLatency, Ticker.SYSTEM);
+    }
+
+    AdaptiveRateLimiter(String host, double maxPermitsPerSecond, double minPermitsPerSecond, Duration targetLatency, Ticker ticker) {
+        this.host = host;
+        this.maxPermitsPerSecond = maxPermitsPerSecond;
+        this.minPermitsPerSecond = Math.min(minPermitsPerSecond, maxPermitsPerSecond);
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.ticker = ticker;
+        this.permitsPerSecond = maxPermitsPerSecond;
+        this.nextPermitAt = ticker.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        if (maxPermitsPerSecond <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = ticker.nanoTime();
+            long permitAt = Math.max(now, nextPermitAt);
+            nextPermitAt = permitAt + (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+            waitNanos = permitAt - now;
+        }
+        if (waitNanos > 0) {
+            ticker.sleepNanos(waitNanos);
+        }
+    }
+
+    public synchronized void onSuccess(long latencyNanos) {
+        if (latencyNanos > targetLatencyNanos) {
+            decrease("slow response " + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + " ms");
+        } else {
+            permitsPerSecond = Math.min(maxPermitsPerSecond, permitsPerSecond + ADDITIVE_STEP);
+        }
+    }
+
+    public synchronized void onFailure() {
+        decrease("failure");
+    }
+
+    public synchronized double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    private void decrease(String reason) {
+        double decreased = Math.max(minPermitsPerSecond, permitsPerSecond / 2);
+        if (decreased < permitsPerSecond) {
+            log.info("{}: {}, lowering rate {} -> {} req/s", host, reason, String.format("%.2f", permitsPerSecond), String.format("%.2f", decreased));
+        }
+        permitsPerSecond = decreased;
+    }
+}
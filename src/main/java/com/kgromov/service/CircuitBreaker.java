@@ -0,0 +1,75 @@
+package com.kgromov.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Opens after failureThreshold consecutive failures. While open, callers are parked rather than failed,
+ * so a batch step just pauses; after openDuration a single probe is let through (half-open)
+ * and its outcome closes or re-opens the breaker.
+ */
+@Slf4j
+public class CircuitBreaker {
+    enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String host;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Ticker ticker;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public CircuitBreaker(String host, int failureThreshold, Duration openDuration) {
+        this(host, failureThreshold, openDuration, Ticker.SYSTEM);
+    }
+
+    CircuitBreaker(String host, int failureThreshold, Duration openDuration, Ticker ticker) {
+        this.host = host;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.ticker = ticker;
+    }
+
+    public synchronized void awaitPermission() throws InterruptedException {
+        while (true) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            long remaining = openedAt + openNanos - ticker.nanoTime();
+            if (state == State.OPEN && remaining <= 0) {
+                log.info("{}: circuit half-open, probing", host);
+                state = State.HALF_OPEN;
+                return;
+            }
+            // OPEN and still cooling down, or HALF_OPEN with a probe in flight
+            wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(state == State.OPEN ? remaining : openNanos)));
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("{}: circuit closed", host);
+            state = State.CLOSED;
+            notifyAll();
+        }
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            log.warn("{}: circuit opened after {} consecutive failures, pausing for {} ms", host, consecutiveFailures,
+                    TimeUnit.NANOSECONDS.toMillis(openNanos));
+            state = State.OPEN;
+            openedAt = ticker.nanoTime();
+            notifyAll();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -10,6 +10,7 @@ public class DailyTemperatureMapper {
 
     public DailyTemperature mapToEntity(DailyTemperatureDto dto) {
         return DailyTemperature.builder()
+                .city(dto.getCity())
                 .date(dto.getDate())
                 .morningTemperature(dto.getMorningTemperature())
                 .afternoonTemperature(dto.getAfternoonTemperature())
@@ -21,6 +22,7 @@ public class DailyTemperatureMapper {
     public DailyTemperatureDto mapToDto(DailyTemperature entity) {
         return DailyTemperatureDto.builder()
                 .id(entity.getId())
+                .city(entity.getCity())
                 .date(entity.getDate())
                 .morningTemperature(entity.getMorningTemperature())
                 .afternoonTemperature(entity.getAfternoonTemperature())
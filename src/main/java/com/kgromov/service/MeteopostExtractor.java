@@ -1,62 +1,107 @@
 package com.kgromov.service;
 
+import com.kgromov.config.FetchSettings;
+import com.kgromov.config.ResilienceSettings;
+import com.kgromov.config.WeatherSource;
 import com.kgromov.domain.City;
 import com.kgromov.dtos.TemperatureMeasurementsDto;
 import com.kgromov.dtos.WeatherMeasurementDto;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.data.util.Pair;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.StopWatch;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 // sync data from Meteopost [2010-01-26; 2022-03-21]; sinoptik - [2022-03-21; now)
 @Slf4j
-@RequiredArgsConstructor
 @Service
 public class MeteopostExtractor implements TemperatureExtractor {
+    static final String SOURCE = "meteopost";
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");
 
-    private final RestTemplateBuilder meteopostTemplateBuilder;
+    private final WeatherSource weatherSource;
+    private final WeatherHttpClient httpClient;
+    private final RawPageArchive pageArchive;
+    private final SourceGuard sourceGuard;
+    private final Timer fetchTimer = Timer.builder("weather.fetch").tag("source", SOURCE).register(Metrics.globalRegistry);
+    private final Timer parseTimer = Timer.builder("weather.parse").tag("source", SOURCE).register(Metrics.globalRegistry);
+
+    public MeteopostExtractor(WeatherSource weatherSource,
+                              WeatherHttpClient httpClient,
+                              RawPageArchive pageArchive,
+                              FetchSettings fetchSettings,
+                              ResilienceSettings resilienceSettings) {
+        this.weatherSource = weatherSource;
+        this.httpClient = httpClient;
+        this.pageArchive = pageArchive;
+        this.sourceGuard = new SourceGuard(SOURCE, fetchSettings.meteopostRequestsPerSecond(), resilienceSettings);
+    }
 
     // last measurements for 2022-03-21 :(
     // [2022-01-21, 2022-01-25, 2022-01-29,
     // 2022-02-03, 2022-02-07, 2022-02-09, 2022-02-11, 2022-02-13, 2022-02-14, 2022-02-17, 2022-02-20, 2022-02-21, 2022-02-23, 2022-02-24, 2022-02-25, 2022-02-26, 2022-02-27, 2022-02-28]
     @Override
     public Optional<TemperatureMeasurementsDto> getTemperatureAt(City city, LocalDate measurementDate) {
-        log.info("Collecting daily temperature for city {}, at {}", city, measurementDate);
-        StopWatch stopWatch = new StopWatch();
-        stopWatch.start("MeteopostExtractor#getTemperatureAt");
-        RestTemplate restTemplate = meteopostTemplateBuilder.build();
+        log.debug("Collecting daily temperature for city {}, at {}", city, measurementDate);
+        String url = weatherSource.meteopostUrl() + '/';
+        Map<String, String> requestBody = Map.of(
+                "d", String.valueOf(measurementDate.getDayOfMonth()),
+                "m", String.format("%02d", measurementDate.getMonthValue()),
+                "y", String.valueOf(measurementDate.getYear()),
+                "city", city.getMeteopostCode(),
+                "arc", "1"
+        );
+        try {
+            return pageArchive.fetch(SOURCE, city, measurementDate,
+                    () -> load(url, requestBody),
+                    page -> timedParse(page, url, measurementDate),
+                    measurements -> !measurements.isEmpty());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-        var requestBody = new LinkedMultiValueMap<>();
-        requestBody.add("d", String.valueOf(measurementDate.getDayOfMonth()));
-        requestBody.add("m", String.format("%02d", measurementDate.getMonthValue()));
-        requestBody.add("y", String.valueOf(measurementDate.getYear()));
-        requestBody.add("city", "UKOO");
-        requestBody.add("arc", "1");
+    private byte[] load(String url, Map<String, String> requestBody) throws IOException {
+        Timer.Sample fetch = Timer.start();
+        byte[] page = sourceGuard.call(() -> httpClient.postForm(url, requestBody));
+        fetch.stop(fetchTimer);
+        return page;
+    }
+
+    private TemperatureMeasurementsDto timedParse(byte[] page, String url, LocalDate measurementDate) throws IOException {
+        Timer.Sample parse = Timer.start();
+        TemperatureMeasurementsDto measurements = parse(page, url, measurementDate);
+        parse.stop(parseTimer);
+        return measurements;
+    }
+
+    // no network involved: usable for archived pages and offline parser checks
+    public static TemperatureMeasurementsDto parse(byte[] page, String baseUri, LocalDate measurementDate) throws IOException {
+        TemperatureMeasurementsDto temperatureMeasurementsDto = new TemperatureMeasurementsDto(measurementDate);
+        if (StreamingTemperatureParser.parseMeteopost(page, temperatureMeasurementsDto::addMeasurement) > 0) {
+            return temperatureMeasurementsDto;
+        }
+        log.debug("Fallback to DOM parsing for {}", baseUri);
+        return parseDocument(page, baseUri, measurementDate);
+    }
 
-        var formEntity = new HttpEntity<>(requestBody);
-        ResponseEntity<String> response = restTemplate.exchange("/", HttpMethod.POST, formEntity, String.class);
-        Document document = Jsoup.parse(response.getBody());
+    static TemperatureMeasurementsDto parseDocument(byte[] page, String baseUri, LocalDate measurementDate) throws IOException {
+        Document document = Jsoup.parse(new ByteArrayInputStream(page), null, baseUri);
         Element weatherTable = document.getElementById("arc");
         Elements timeCells = weatherTable.select("tbody td:nth-child(1)");
         Elements temperatureCells = weatherTable.select("tbody td:nth-child(2)");
@@ -67,12 +112,9 @@ public class MeteopostExtractor implements TemperatureExtractor {
                 .map(Optional::get)
                 .collect(Collectors.toList());
 
-        TemperatureMeasurementsDto temperatureMeasurementsDto = new TemperatureMeasurementsDto();
-        temperatureMeasurementsDto.setDate(measurementDate);
-        temperatureMeasurementsDto.setDailyMeasurements(dailyMeasurements);
-        stopWatch.stop();
-        log.info("Time to extract cell values = {} ms", stopWatch.getLastTaskTimeMillis());
-        return Optional.of(temperatureMeasurementsDto);
+        TemperatureMeasurementsDto temperatureMeasurementsDto = new TemperatureMeasurementsDto(measurementDate);
+        dailyMeasurements.forEach(temperatureMeasurementsDto::addMeasurement);
+        return temperatureMeasurementsDto;
     }
 
     private static Optional<WeatherMeasurementDto> mapToWeatherMeasurementDto(Element timeElement, Element tempElement) {
@@ -0,0 +1,157 @@
+package com.kgromov.service;
+
+import com.kgromov.config.ArchiveSettings;
+import com.kgromov.domain.City;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.time.format.DateTimeFormatter.ISO_DATE;
+
+/*
+ * Content-addressed store of raw source pages:
+ *  objects/<2 hex>/<sha-256>.gz         - gzipped page body, shared by identical pages
+ *  refs/<source>/<city>/<year>/<date>   - sha-256 of the page fetched for that key
+ */
+@Slf4j
+@Component
+public class RawPageArchive {
+    private final ArchiveSettings.Mode mode;
+    private final Path objectsDir;
+    private final Path refsDir;
+
+    public RawPageArchive(ArchiveSettings archiveSettings) {
+        this.mode = archiveSettings.mode();
+        Path root = Paths.get(archiveSettings.directory());
+        this.objectsDir = root.resolve("objects");
+        this.refsDir = root.resolve("refs");
+    }
+
+    @FunctionalInterface
+    public interface PageLoader {
+        byte[] load() throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface PageParser<T> {
+        T parse(byte[] page) throws IOException;
+    }
+
+    /*
+     * A loaded page is archived only once it parsed into something worth keeping, so error, captcha or empty pages
+     * are loaded again next time instead of being served forever; READ_THROUGH reloads such archived pages as well.
+     */
+    public <T> Optional<T> fetch(String source, City city, LocalDate date, PageLoader loader,
+                                 PageParser<T> parser, Predicate<? super T> worthKeeping) throws IOException {
+        if (mode == ArchiveSettings.Mode.OFF) {
+            return Optional.of(parser.parse(loader.load()));
+        }
+        Optional<byte[]> archived = read(source, city, date);
+        if (mode == ArchiveSettings.Mode.REPLAY) {
+            if (archived.isEmpty()) {
+                log.warn("No archived {} page for city = {} at {}", source, city, date.format(ISO_DATE));
+                return Optional.empty();
+            }
+            return Optional.of(parser.parse(archived.get()));
+        }
+        if (archived.isPresent()) {
+            Optional<T> parsed = parseArchived(archived.get(), parser, worthKeeping);
+            if (parsed.isPresent()) {
+                return parsed;
+            }
+            log.info("Archived {} page for city = {} at {} has nothing to keep, loading it again",
+                    source, city, date.format(ISO_DATE));
+        }
+        byte[] page = loader.load();
+        T parsed = parser.parse(page);
+        // pages for today and later are still changing
+        if (worthKeeping.test(parsed) && date.isBefore(LocalDate.now())) {
+            store(source, city, date, page);
+        }
+        return Optional.of(parsed);
+    }
+
+    public Optional<byte[]> read(String source, City city, LocalDate date) throws IOException {
+        Path ref = refPath(source, city, date);
+        if (!Files.exists(ref)) {
+            return Optional.empty();
+        }
+        Path object = objectPath(Files.readString(ref, StandardCharsets.US_ASCII).trim());
+        if (!Files.exists(object)) {
+            log.warn("Archive ref {} points to missing object {}", ref, object);
+            return Optional.empty();
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(object))) {
+            return Optional.of(in.readAllBytes());
+        }
+    }
+
+    public void store(String source, City city, LocalDate date, byte[] page) throws IOException {
+        String hash = sha256(page);
+        Path object = objectPath(hash);
+        if (!Files.exists(object)) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(page.length / 4);
+            try (OutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(page);
+            }
+            writeAtomically(object, compressed.toByteArray());
+        }
+        writeAtomically(refPath(source, city, date), hash.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static <T> Optional<T> parseArchived(byte[] page, PageParser<T> parser, Predicate<? super T> worthKeeping) {
+        try {
+            return Optional.of(parser.parse(page)).filter(worthKeeping);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to parse archived page", e);
+            return Optional.empty();
+        }
+    }
+
+    private Path refPath(String source, City city, LocalDate date) {
+        return refsDir.resolve(source)
+                .resolve(city.getName())
+                .resolve(String.valueOf(date.getYear()))
+                .resolve(date.format(ISO_DATE));
+    }
+
+    private Path objectPath(String hash) {
+        return objectsDir.resolve(hash.substring(0, 2)).resolve(hash + ".gz");
+    }
+
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, content);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.kgromov.service;
+
+import com.kgromov.config.RoutingSettings;
+import com.kgromov.domain.City;
+import com.kgromov.dtos.TemperatureMeasurementsDto;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import static java.time.format.DateTimeFormatter.ISO_DATE;
+
+/*
+ * Sends each date to the source that covers it.
+ * Where both sources have data sinoptik goes first; meteopost is asked as well
+ * when sinoptik is slower than hedgeDelay (first non-empty answer wins),
+ * or instead of sinoptik when it fails or has nothing for the date.
+ */
+@Slf4j
+@Primary
+@Service
+public class RoutingTemperatureExtractor implements TemperatureExtractor {
+    private final SinoptikExtractor sinoptikExtractor;
+    private final MeteopostExtractor meteopostExtractor;
+    private final RoutingSettings routingSettings;
+    private final ExecutorService hedgeExecutor = ExecutorServiceMetrics.monitor(Metrics.globalRegistry,
+            Executors.newCachedThreadPool(new CustomizableThreadFactory("hedged-fetch-")), "hedgedFetch");
+
+    public RoutingTemperatureExtractor(SinoptikExtractor sinoptikExtractor,
+                                       MeteopostExtractor meteopostExtractor,
+                                       RoutingSettings routingSettings) {
+        this.sinoptikExtractor = sinoptikExtractor;
+        this.meteopostExtractor = meteopostExtractor;
+        this.routingSettings = routingSettings;
+    }
+
+    @Override
+    public Optional<TemperatureMeasurementsDto> getTemperatureAt(City city, LocalDate date) {
+        boolean meteopost = isCoveredByMeteopost(date);
+        boolean sinoptik = isCoveredBySinoptik(date);
+        if (sinoptik && meteopost) {
+            return getHedged(sinoptikExtractor, meteopostExtractor, city, date);
+        }
+        if (sinoptik) {
+            return sinoptikExtractor.getTemperatureAt(city, date);
+        }
+        if (meteopost) {
+            return meteopostExtractor.getTemperatureAt(city, date);
+        }
+        log.warn("No source covers date {}", date.format(ISO_DATE));
+        return Optional.empty();
+    }
+
+    boolean isCoveredByMeteopost(LocalDate date) {
+        return !date.isBefore(routingSettings.meteopostFrom()) && !date.isAfter(routingSettings.meteopostTo());
+    }
+
+    boolean isCoveredBySinoptik(LocalDate date) {
+        return !date.isBefore(routingSettings.sinoptikFrom());
+    }
+
+    private Optional<TemperatureMeasurementsDto> getHedged(TemperatureExtractor primary,
+                                                           TemperatureExtractor secondary,
+                                                           City city,
+                                                           LocalDate date) {
+        CompletableFuture<Optional<TemperatureMeasurementsDto>> first =
+                CompletableFuture.supplyAsync(() -> primary.getTemperatureAt(city, date), hedgeExecutor);
+        try {
+            Optional<TemperatureMeasurementsDto> result = first.get(routingSettings.hedgeDelay().toMillis(), TimeUnit.MILLISECONDS);
+            if (result.isPresent()) {
+                return result;
+            }
+            log.warn("{} has no data for {}, failing over to {}", name(primary), date.format(ISO_DATE), name(secondary));
+            return secondary.getTemperatureAt(city, date);
+        } catch (ExecutionException e) {
+            log.warn("{} failed for {}, failing over to {}", name(primary), date.format(ISO_DATE), name(secondary), e.getCause());
+            return secondary.getTemperatureAt(city, date);
+        } catch (TimeoutException e) {
+            log.info("{} is slower than {} for {}, hedging with {}",
+                    name(primary), routingSettings.hedgeDelay(), date.format(ISO_DATE), name(secondary));
+            CompletableFuture<Optional<TemperatureMeasurementsDto>> second =
+                    CompletableFuture.supplyAsync(() -> secondary.getTemperatureAt(city, date), hedgeExecutor);
+            return firstPresent(first, second);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching date = " + date.format(ISO_DATE), e);
+        }
+    }
+
+    // completes with the first non-empty result; empty if none, a failure only if both sources failed
+    private static Optional<TemperatureMeasurementsDto> firstPresent(CompletableFuture<Optional<TemperatureMeasurementsDto>> primary,
+                                                                     CompletableFuture<Optional<TemperatureMeasurementsDto>> secondary) {
+        CompletableFuture<Optional<TemperatureMeasurementsDto>> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        AtomicInteger failed = new AtomicInteger();
+        BiConsumer<Optional<TemperatureMeasurementsDto>, Throwable> onComplete = (result, error) -> {
+            if (error != null) {
+                firstError.compareAndSet(null, error);
+                failed.incrementAndGet();
+            } else if (result.isPresent()) {
+                winner.complete(result);
+            }
+            if (pending.decrementAndGet() == 0) {
+                if (failed.get() == 2) {
+                    winner.completeExceptionally(firstError.get());
+                } else {
+                    winner.complete(Optional.empty());
+                }
+            }
+        };
+        primary.whenComplete(onComplete);
+        secondary.whenComplete(onComplete);
+        try {
+            return winner.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static String name(TemperatureExtractor extractor) {
+        return extractor.getClass().getSimpleName();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hedgeExecutor.shutdownNow();
+    }
+}
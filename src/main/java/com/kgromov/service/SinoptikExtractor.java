@@ -1,20 +1,22 @@
 package com.kgromov.service;
 
+import com.kgromov.config.FetchSettings;
+import com.kgromov.config.ResilienceSettings;
 import com.kgromov.config.WeatherSource;
 import com.kgromov.domain.City;
 import com.kgromov.dtos.TemperatureMeasurementsDto;
 import com.kgromov.dtos.WeatherMeasurementDto;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -23,52 +25,93 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 @Slf4j
-@RequiredArgsConstructor
 @Service
 public class SinoptikExtractor implements TemperatureExtractor {
+    static final String SOURCE = "sinoptik";
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H :mm");
     private final WeatherSource weatherSource;
+    private final WeatherHttpClient httpClient;
+    private final RawPageArchive pageArchive;
+    private final SourceGuard sourceGuard;
+    private final Timer fetchTimer = Timer.builder("weather.fetch").tag("source", SOURCE).register(Metrics.globalRegistry);
+    private final Timer parseTimer = Timer.builder("weather.parse").tag("source", SOURCE).register(Metrics.globalRegistry);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    public SinoptikExtractor(WeatherSource weatherSource,
+                             WeatherHttpClient httpClient,
+                             RawPageArchive pageArchive,
+                             FetchSettings fetchSettings,
+                             ResilienceSettings resilienceSettings) {
+        this.weatherSource = weatherSource;
+        this.httpClient = httpClient;
+        this.pageArchive = pageArchive;
+        this.sourceGuard = new SourceGuard(SOURCE, fetchSettings.sinoptikRequestsPerSecond(), resilienceSettings);
+    }
+
     @Override
     public Optional<TemperatureMeasurementsDto> getTemperatureAt(City city, LocalDate measurementDate) {
-        long start = System.nanoTime();
-        log.info("Collecting daily temperature for city {}, at {}", city, measurementDate);
+        log.debug("Collecting daily temperature for city {}, at {}", city, measurementDate);
         String dateFormatted = DATE_FORMATTER.format(measurementDate);
         try {
             String encodedCityName = URLEncoder.encode(city.getKeyWord(), StandardCharsets.UTF_8);
             String url = weatherSource.sinoptikUrl() + '/' + encodedCityName + '/' + dateFormatted;
-            Connection connection = Jsoup.connect(url);
-            Document document = connection.get();
-
-            Element weatherTable = document.selectFirst("table.weatherDetails");
-            Elements timeCells = weatherTable.select("tbody>tr.gray.time>td");
-            Elements temperatureCells = weatherTable.select("tbody>tr.temperature>td");
-
-            List<WeatherMeasurementDto> dailyMeasurements = IntStream.range(0, timeCells.size()).boxed()
-                    .map(index -> Pair.of(timeCells.get(index), temperatureCells.get(index)))
-                    .map(data -> mapToWeatherMeasurementDto(data.getFirst(), data.getSecond()))
-                    .collect(Collectors.toList());
-
-            TemperatureMeasurementsDto temperatureMeasurementsDto = new TemperatureMeasurementsDto();
-            temperatureMeasurementsDto.setDate(measurementDate);
-            temperatureMeasurementsDto.setDailyMeasurements(dailyMeasurements);
-            return Optional.of(temperatureMeasurementsDto);
+            return pageArchive.fetch(SOURCE, city, measurementDate,
+                    () -> load(url),
+                    page -> timedParse(page, url, measurementDate),
+                    measurements -> !measurements.isEmpty());
         } catch (NullPointerException e) {
             log.error("No weather for specified date {} in city = {}", dateFormatted, city);
             return Optional.empty();
         } catch (IOException e) {
             throw new RuntimeException(e);
-        } finally {
-            log.info("Time to extract cell values = {} ms", TimeUnit.MILLISECONDS.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS));
         }
     }
 
+    private byte[] load(String url) throws IOException {
+        Timer.Sample fetch = Timer.start();
+        byte[] page = sourceGuard.call(() -> httpClient.get(url));
+        fetch.stop(fetchTimer);
+        return page;
+    }
+
+    private TemperatureMeasurementsDto timedParse(byte[] page, String url, LocalDate measurementDate) throws IOException {
+        Timer.Sample parse = Timer.start();
+        TemperatureMeasurementsDto measurements = parse(page, url, measurementDate);
+        parse.stop(parseTimer);
+        return measurements;
+    }
+
+    // no network involved: usable for archived pages and offline parser checks
+    public static TemperatureMeasurementsDto parse(byte[] page, String baseUri, LocalDate measurementDate) throws IOException {
+        TemperatureMeasurementsDto temperatureMeasurementsDto = new TemperatureMeasurementsDto(measurementDate);
+        if (StreamingTemperatureParser.parseSinoptik(page, temperatureMeasurementsDto::addMeasurement) > 0) {
+            return temperatureMeasurementsDto;
+        }
+        log.debug("Fallback to DOM parsing for {}", baseUri);
+        return parseDocument(page, baseUri, measurementDate);
+    }
+
+    static TemperatureMeasurementsDto parseDocument(byte[] page, String baseUri, LocalDate measurementDate) throws IOException {
+        Document document = Jsoup.parse(new ByteArrayInputStream(page), null, baseUri);
+
+        Element weatherTable = document.selectFirst("table.weatherDetails");
+        Elements timeCells = weatherTable.select("tbody>tr.gray.time>td");
+        Elements temperatureCells = weatherTable.select("tbody>tr.temperature>td");
+
+        List<WeatherMeasurementDto> dailyMeasurements = IntStream.range(0, timeCells.size()).boxed()
+                .map(index -> Pair.of(timeCells.get(index), temperatureCells.get(index)))
+                .map(data -> mapToWeatherMeasurementDto(data.getFirst(), data.getSecond()))
+                .collect(Collectors.toList());
+
+        TemperatureMeasurementsDto temperatureMeasurementsDto = new TemperatureMeasurementsDto(measurementDate);
+        dailyMeasurements.forEach(temperatureMeasurementsDto::addMeasurement);
+        return temperatureMeasurementsDto;
+    }
+
     private static WeatherMeasurementDto mapToWeatherMeasurementDto(Element timeElement,Element tempElement){
         String time = timeElement.text().trim();
         String temperature = tempElement.text().trim();
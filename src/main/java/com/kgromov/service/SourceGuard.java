@@ -0,0 +1,97 @@
+package com.kgromov.service;
+
+import com.kgromov.config.ResilienceSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpResponseException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// per-host resilience around a page request: adaptive pacing, circuit breaker and retries with full-jitter backoff
+@Slf4j
+public class SourceGuard {
+    private final String host;
+    private final ResilienceSettings settings;
+    private final AdaptiveRateLimiter rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Ticker ticker;
+
+    public SourceGuard(String host, double maxRequestsPerSecond, ResilienceSettings settings) {
+        this(host, maxRequestsPerSecond, settings, Ticker.SYSTEM);
+    }
+
+    SourceGuard(String host, double maxRequestsPerSecond, ResilienceSettings settings, Ticker ticker) {
+        this.host = host;
+        this.settings = settings;
+        this.ticker = ticker;
+        this.rateLimiter = new AdaptiveRateLimiter(host, maxRequestsPerSecond, settings.minRequestsPerSecond(), settings.targetLatency(), ticker);
+        this.circuitBreaker = new CircuitBreaker(host, settings.failureThreshold(), settings.openDuration(), ticker);
+    }
+
+    public byte[] call(RawPageArchive.PageLoader loader) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                circuitBreaker.awaitPermission();
+                rateLimiter.acquire();
+                long start = ticker.nanoTime();
+                byte[] page = loader.load();
+                rateLimiter.onSuccess(ticker.nanoTime() - start);
+                circuitBreaker.onSuccess();
+                return page;
+            } catch (IOException e) {
+                if (!isRetryable(e)) {
+                    // the host answered, there is just nothing to retry
+                    circuitBreaker.onSuccess();
+                    throw e;
+                }
+                rateLimiter.onFailure();
+                circuitBreaker.onFailure();
+                if (attempt >= settings.maxAttempts()) {
+                    throw e;
+                }
+                long backoff = backoffMillis(attempt);
+                log.warn("{}: attempt {}/{} failed ({}), retrying in {} ms", host, attempt, settings.maxAttempts(), e.toString(), backoff);
+                sleep(backoff);
+            } catch (RuntimeException e) {
+                // not retried, but counted - otherwise a failed half-open probe would park every later caller for good
+                circuitBreaker.onFailure();
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + host);
+            }
+        }
+    }
+
+    public AdaptiveRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private long backoffMillis(int attempt) {
+        long cap = Math.min(settings.maxBackoff().toMillis(), settings.initialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static boolean isRetryable(IOException e) {
+        if (e instanceof HttpResponseException responseException) {
+            int status = responseException.getStatusCode();
+            return status == 408 || status == 429 || status >= 500;
+        }
+        return true;
+    }
+
+    private void sleep(long millis) throws InterruptedIOException {
+        try {
+            ticker.sleepNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during backoff");
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.kgromov.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Targeted scanner over raw page bytes: jumps straight to the temperature table and reads
+ * (minute-of-day, temperature) pairs without building a DOM, Strings or LocalTime instances.
+ * Every parse method returns the number of emitted measurements or -1 when the page does not
+ * look as expected - callers are supposed to fall back to the Jsoup based parsing then.
+ */
+public final class StreamingTemperatureParser {
+    private static final byte[] TABLE_OPEN = ascii("<table");
+    private static final byte[] TABLE_CLOSE = ascii("</table");
+    private static final byte[] TR_OPEN = ascii("<tr");
+    private static final byte[] TD_OPEN = ascii("<td");
+    private static final byte[] TD_CLOSE = ascii("</td");
+    private static final byte[] MINUS_ENTITY = ascii("&minus;");
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    @FunctionalInterface
+    public interface MeasurementSink {
+        void accept(int minuteOfDay, int temperature);
+    }
+
+    private StreamingTemperatureParser() {
+    }
+
+    // sinoptik: <table class="weatherDetails"> with <tr class="gray time"> and <tr class="temperature"> rows
+    public static int parseSinoptik(byte[] page, MeasurementSink sink) {
+        int[] table = findTable(page, "class", "weatherDetails");
+        if (table == null) {
+            return -1;
+        }
+        int[] minutes = null;
+        int[] temperatures = null;
+        int row = indexOf(page, TR_OPEN, table[0], table[1]);
+        while (row >= 0 && (minutes == null || temperatures == null)) {
+            int rowTagEnd = tagEnd(page, row, table[1]);
+            if (rowTagEnd < 0) {
+                return -1;
+            }
+            int rowEnd = nextOrEnd(page, TR_OPEN, rowTagEnd, table[1]);
+            if (minutes == null && hasToken(page, row, rowTagEnd, "class", "time") && hasToken(page, row, rowTagEnd, "class", "gray")) {
+                minutes = readCells(page, rowTagEnd, rowEnd, true);
+                if (minutes == null) {
+                    return -1;
+                }
+            } else if (temperatures == null && hasToken(page, row, rowTagEnd, "class", "temperature")) {
+                temperatures = readCells(page, rowTagEnd, rowEnd, false);
+                if (temperatures == null) {
+                    return -1;
+                }
+            }
+            row = indexOf(page, TR_OPEN, rowEnd, table[1]);
+        }
+        if (minutes == null || temperatures == null || temperatures.length < minutes.length) {
+            return -1;
+        }
+        for (int i = 0; i < minutes.length; i++) {
+            sink.accept(minutes[i], temperatures[i]);
+        }
+        return minutes.length;
+    }
+
+    // meteopost: <table id="arc">, every row starts with time and temperature cells; rows that do not parse are skipped
+    public static int parseMeteopost(byte[] page, MeasurementSink sink) {
+        int[] table = findTable(page, "id", "arc");
+        if (table == null) {
+            return -1;
+        }
+        int emitted = 0;
+        int row = indexOf(page, TR_OPEN, table[0], table[1]);
+        while (row >= 0) {
+            int rowTagEnd = tagEnd(page, row, table[1]);
+            if (rowTagEnd < 0) {
+                break;
+            }
+            int rowEnd = nextOrEnd(page, TR_OPEN, rowTagEnd, table[1]);
+            int timeCell = indexOf(page, TD_OPEN, rowTagEnd, rowEnd);
+            int timeStart = timeCell < 0 ? -1 : tagEnd(page, timeCell, rowEnd);
+            if (timeStart >= 0) {
+                int timeEnd = nextOrEnd(page, TD_CLOSE, timeStart, rowEnd);
+                int tempCell = indexOf(page, TD_OPEN, timeEnd, rowEnd);
+                int tempStart = tempCell < 0 ? -1 : tagEnd(page, tempCell, rowEnd);
+                if (tempStart >= 0) {
+                    int tempEnd = nextOrEnd(page, TD_CLOSE, tempStart, rowEnd);
+                    int minuteOfDay = parseMinuteOfDay(page, timeStart + 1, timeEnd);
+                    int temperature = parseTemperature(page, tempStart + 1, tempEnd);
+                    if (minuteOfDay != NO_VALUE && temperature != NO_VALUE) {
+                        sink.accept(minuteOfDay, temperature);
+                        emitted++;
+                    }
+                }
+            }
+            row = indexOf(page, TR_OPEN, rowEnd, table[1]);
+        }
+        return emitted;
+    }
+
+    // [tag start, table end) of the first table whose attribute contains the given token
+    private static int[] findTable(byte[] page, String attribute, String token) {
+        int table = indexOf(page, TABLE_OPEN, 0, page.length);
+        while (table >= 0) {
+            int tableTagEnd = tagEnd(page, table, page.length);
+            if (tableTagEnd < 0) {
+                return null;
+            }
+            if (hasToken(page, table, tableTagEnd, attribute, token)) {
+                return new int[]{tableTagEnd + 1, nextOrEnd(page, TABLE_CLOSE, tableTagEnd, page.length)};
+            }
+            table = indexOf(page, TABLE_OPEN, tableTagEnd, page.length);
+        }
+        return null;
+    }
+
+    private static int[] readCells(byte[] page, int from, int to, boolean time) {
+        int[] values = new int[8];
+        int count = 0;
+        int cell = indexOf(page, TD_OPEN, from, to);
+        while (cell >= 0) {
+            int cellStart = tagEnd(page, cell, to);
+            if (cellStart < 0) {
+                return null;
+            }
+            int cellEnd = nextOrEnd(page, TD_CLOSE, cellStart, to);
+            int value = time ? parseMinuteOfDay(page, cellStart + 1, cellEnd) : parseTemperature(page, cellStart + 1, cellEnd);
+            if (value == NO_VALUE) {
+                return null;
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+            cell = indexOf(page, TD_OPEN, cellEnd, to);
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    // "H:mm" or sinoptik's "H :mm", markup and entities inside the cell are ignored
+    static int parseMinuteOfDay(byte[] page, int from, int to) {
+        int hours = -1;
+        int minutes = -1;
+        for (int i = from; i < to; i++) {
+            byte b = page[i];
+            if (b == '<') {
+                i = skipTo(page, i, to, '>');
+            } else if (b == '&') {
+                i = skipTo(page, i, to, ';');
+            } else if (b >= '0' && b <= '9') {
+                if (minutes >= 0) {
+                    minutes = minutes * 10 + (b - '0');
+                } else {
+                    hours = (hours < 0 ? 0 : hours * 10) + (b - '0');
+                }
+            } else if (b == ':' && hours >= 0 && minutes < 0) {
+                minutes = 0;
+            } else if (!isWhitespace(b)) {
+                return NO_VALUE;
+            }
+        }
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+            return NO_VALUE;
+        }
+        return hours * 60 + minutes;
+    }
+
+    // optional sign ('+', '-', U+2212 or &minus;) followed by digits; whatever follows the digits (°, &deg;) is ignored
+    static int parseTemperature(byte[] page, int from, int to) {
+        int sign = 1;
+        int value = -1;
+        for (int i = from; i < to; i++) {
+            byte b = page[i];
+            if (b >= '0' && b <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (b - '0');
+            } else if (value >= 0) {
+                break;
+            } else if (b == '<') {
+                i = skipTo(page, i, to, '>');
+            } else if (b == '-') {
+                sign = -1;
+            } else if (b == (byte) 0xE2 && i + 2 < to && page[i + 1] == (byte) 0x88 && page[i + 2] == (byte) 0x92) {
+                sign = -1;
+                i += 2;
+            } else if (b == '&') {
+                if (startsWith(page, i, to, MINUS_ENTITY)) {
+                    sign = -1;
+                }
+                i = skipTo(page, i, to, ';');
+            } else if (b != '+' && !isWhitespace(b)) {
+                return NO_VALUE;
+            }
+        }
+        return value < 0 ? NO_VALUE : sign * value;
+    }
+
+    private static boolean hasToken(byte[] page, int tagStart, int tagEnd, String attribute, String token) {
+        byte[] name = ascii(attribute + "=");
+        int attr = indexOf(page, name, tagStart, tagEnd);
+        while (attr >= 0 && page[attr - 1] != ' ' && page[attr - 1] != '\t' && page[attr - 1] != '\n') {
+            attr = indexOf(page, name, attr + 1, tagEnd);
+        }
+        if (attr < 0) {
+            return false;
+        }
+        int valueStart = attr + name.length;
+        byte quote = page[valueStart];
+        int valueEnd;
+        if (quote == '"' || quote == '\'') {
+            valueStart++;
+            valueEnd = skipTo(page, valueStart, tagEnd, quote);
+        } else {
+            valueEnd = valueStart;
+            while (valueEnd < tagEnd && !isWhitespace(page[valueEnd])) {
+                valueEnd++;
+            }
+        }
+        byte[] expected = ascii(token);
+        int i = valueStart;
+        while (i < valueEnd) {
+            while (i < valueEnd && isWhitespace(page[i])) {
+                i++;
+            }
+            int tokenStart = i;
+            while (i < valueEnd && !isWhitespace(page[i])) {
+                i++;
+            }
+            if (i - tokenStart == expected.length && startsWith(page, tokenStart, i, expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int tagEnd(byte[] page, int from, int to) {
+        int end = skipTo(page, from, to, '>');
+        return end < to ? end : -1;
+    }
+
+    private static int nextOrEnd(byte[] page, byte[] needle, int from, int to) {
+        int next = indexOf(page, needle, from, to);
+        return next < 0 ? to : next;
+    }
+
+    private static int skipTo(byte[] page, int from, int to, int target) {
+        int i = from;
+        while (i < to && page[i] != target) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int indexOf(byte[] page, byte[] needle, int from, int to) {
+        byte first = needle[0];
+        int last = to - needle.length;
+        for (int i = from; i <= last; i++) {
+            if (page[i] == first && startsWith(page, i, to, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] page, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int j = 0; j < prefix.length; j++) {
+            if (page[from + j] != prefix[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -2,10 +2,11 @@ package com.kgromov.service;
 
 import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperature;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StopWatch;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,15 +20,24 @@ public class SyncService {
     private final TemperatureService temperatureService;
 
     public void syncDailyTemperature() {
-        StopWatch stopWatch = new StopWatch();
-        stopWatch.start("syncDailyTemperature");
-        DailyTemperature latestDateTemperature = temperatureService.getLatestDateTemperature();
+        for (City city : City.values()) {
+            syncDailyTemperature(city);
+        }
+    }
+
+    public void syncDailyTemperature(City city) {
+        Timer.Sample sample = Timer.start();
+        DailyTemperature latestDateTemperature = temperatureService.getLatestDateTemperature(city);
+        if (latestDateTemperature == null) {
+            log.info("No temperature for city {} yet, skip sync - backfill it with fetchTemperatureJob first", city);
+            return;
+        }
         LocalDate startDate = latestDateTemperature.getDate().plusDays(1);
         LocalDate endDate = LocalDate.now();
-        List<DailyTemperature> temperatureForYearsInCity = temperatureService.getTemperatureForYearsInCity(City.ODESSA, startDate, endDate);
+        List<DailyTemperature> temperatureForYearsInCity = temperatureService.getTemperatureForYearsInCity(city, startDate, endDate);
         temperatureService.saveTemperature(temperatureForYearsInCity);
-        stopWatch.stop();
-        log.info("Sync temperature for [{} to {}] is finished within {} ms",
-                startDate.format(ISO_DATE), endDate.format(ISO_DATE), stopWatch.getLastTaskTimeMillis());
+        long elapsedNanos = sample.stop(Metrics.timer("weather.sync", "city", city.name()));
+        log.info("Sync temperature in {} for [{} to {}] is finished within {} ms",
+                city, startDate.format(ISO_DATE), endDate.format(ISO_DATE), elapsedNanos / 1_000_000);
     }
 }
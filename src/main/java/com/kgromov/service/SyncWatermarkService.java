@@ -0,0 +1,46 @@
+package com.kgromov.service;
+
+import com.kgromov.domain.City;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+ * Latest DailyTemperature.updatedAt per city that is already in weather_archive, one document per city in 'sync_watermark'.
+ * A change marker rather than a day: back-filled gaps and re-fetched days are picked up whatever their date is.
+ * Kept as fixed-width strings: no timezone shift on the way to Mongo, and $max on them is chronological.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SyncWatermarkService {
+    static final String COLLECTION = "sync_watermark";
+    private static final String LAST_SYNCED_UPDATE = "lastSyncedUpdate";
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSSSS");
+
+    private final MongoTemplate mongoTemplate;
+
+    public Optional<LocalDateTime> getLastSyncedUpdate(City city) {
+        return Optional.ofNullable(mongoTemplate.findById(city.name(), Document.class, COLLECTION))
+                .map(document -> document.getString(LAST_SYNCED_UPDATE))
+                .map(value -> LocalDateTime.parse(value, FORMAT));
+    }
+
+    // never moves backwards, so a late partition can not rewind it
+    public void advance(City city, LocalDateTime lastSyncedUpdate) {
+        mongoTemplate.upsert(Query.query(where("_id").is(city.name())),
+                new Update().max(LAST_SYNCED_UPDATE, FORMAT.format(lastSyncedUpdate)),
+                COLLECTION);
+        log.info("{}: sync watermark advanced to {}", city, lastSyncedUpdate);
+    }
+}
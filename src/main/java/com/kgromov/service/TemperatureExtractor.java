@@ -8,6 +8,9 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -21,6 +24,24 @@ public interface TemperatureExtractor {
                 .collect(Collectors.toList());
     }
 
+    // days are fetched on the shared fetch executor, its pool size caps in-flight fetches of all callers; results are still in date order
+    default List<TemperatureMeasurementsDto> getTemperatureForRange(City city, LocalDate startDate, LocalDate endDate, Executor fetchExecutor) {
+        List<CompletableFuture<Optional<TemperatureMeasurementsDto>>> days = Stream.iterate(startDate, d -> d.plusDays(1))
+                .limit(ChronoUnit.DAYS.between(startDate, endDate) + 1)
+                .map(date -> CompletableFuture.supplyAsync(() -> getTemperatureAt(city, date), fetchExecutor))
+                .toList();
+        try {
+            return days.stream()
+                    .map(CompletableFuture::join)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(Collectors.toList());
+        } catch (CompletionException e) {
+            days.forEach(day -> day.cancel(false));
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
     @SneakyThrows
     Optional<TemperatureMeasurementsDto> getTemperatureAt(City city, LocalDate date);
 }
@@ -0,0 +1,87 @@
+package com.kgromov.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import com.kgromov.domain.TemperatureChangedEvent;
+import com.kgromov.dtos.DailyTemperatureDto;
+import com.kgromov.dtos.JsonSnapshot;
+import com.kgromov.repository.DailyTemperatureRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * Read side for dashboards: answers are cached already serialized, with their ETag,
+ * so a repeated query costs neither a database round trip nor JSON serialization.
+ * Any write of days to MySQL drops all cached answers once its transaction commits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TemperatureHistoryService {
+    public static final String RANGE_CACHE = "temperature-range";
+    public static final String LATEST_CACHE = "temperature-latest";
+    public static final String SAME_DAY_CACHE = "temperature-same-day";
+
+    private final DailyTemperatureRepository temperatureRepository;
+    private final DailyTemperatureMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+
+    @Cacheable(RANGE_CACHE)
+    @Transactional(readOnly = true)
+    public JsonSnapshot getRange(City city, LocalDate from, LocalDate to) {
+        return daysToJson(temperatureRepository.findByCityAndDateBetweenOrderByDate(city, from, to));
+    }
+
+    @Cacheable(cacheNames = LATEST_CACHE, unless = "#result == null")
+    @Transactional(readOnly = true)
+    public JsonSnapshot getLatest(City city) {
+        return Optional.ofNullable(temperatureRepository.findFirstByCityOrderByDateDesc(city))
+                .map(mapper::mapToDto)
+                .map(this::toJson)
+                .orElse(null);
+    }
+
+    // the same day of year in the given year and the years before, latest first
+    @Cacheable(SAME_DAY_CACHE)
+    @Transactional(readOnly = true)
+    public JsonSnapshot getSameDayInPastYears(City city, LocalDate date, int years) {
+        return daysToJson(temperatureRepository.findSameDayInPastYears(city.name(), date, years));
+    }
+
+    // without a transaction (e.g. a plain repository call) the caches are dropped right away
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTemperatureChanged(TemperatureChangedEvent event) {
+        for (String cacheName : List.of(RANGE_CACHE, LATEST_CACHE, SAME_DAY_CACHE)) {
+            Optional.ofNullable(cacheManager.getCache(cacheName)).ifPresent(Cache::clear);
+        }
+        log.debug("{} days written, temperature caches cleared", event.days());
+    }
+
+    private JsonSnapshot daysToJson(List<DailyTemperature> days) {
+        return toJson(days.stream().map(mapper::mapToDto).toList());
+    }
+
+    private JsonSnapshot toJson(Object value) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            return new JsonSnapshot(body, '"' + DigestUtils.md5DigestAsHex(body) + '"');
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
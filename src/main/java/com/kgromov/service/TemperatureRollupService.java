@@ -0,0 +1,151 @@
+package com.kgromov.service;
+
+import com.kgromov.batch.MongoQueries;
+import com.kgromov.domain.City;
+import com.kgromov.domain.MonthTemperature;
+import com.kgromov.domain.YearTemperature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+ * Monthly and yearly rollups of weather_archive, computed by aggregation pipelines and $merge-d
+ * into month_temperature (_id = {city, year, month}) and year_temperature (_id = {city, year}).
+ * Years are rolled up from months, so a refresh costs the days of the affected months plus a few month documents.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TemperatureRollupService {
+    static final String MONTH_TEMPERATURE = "month_temperature";
+    static final String YEAR_TEMPERATURE = "year_temperature";
+    private static final List<String> PARTS_OF_THE_DAY =
+            List.of("$morningTemperature", "$afternoonTemperature", "$eveningTemperature", "$nightTemperature");
+    // a stored date is the writer's local midnight after the day (see WriteToMongoProcessor.toDocument), 12 hours before is
+    // noon of the day: that instant falls on the same day in UTC for any writer zone within +-12h, whatever zone runs the rollup
+    private static final long HALF_DAY_MILLIS = 12 * 60 * 60 * 1000L;
+
+    private final MongoTemplate mongoTemplate;
+
+    // recomputes the months of [from; to] (days as in MySQL) and their years
+    public void refresh(City city, LocalDate from, LocalDate to) {
+        LocalDate firstDay = from.withDayOfMonth(1);
+        LocalDate lastDay = to.with(TemporalAdjusters.lastDayOfMonth());
+        rollupMonths(new Criteria().andOperator(
+                MongoQueries.cityIs(city),
+                MongoQueries.dateBetween(firstDay.plusDays(1), lastDay.plusDays(1))));
+        rollupYears(where("city").is(city.name()).and("year").gte(firstDay.getYear()).lte(lastDay.getYear()));
+        log.info("{}: rollups refreshed for [{}; {}]", city, firstDay, lastDay);
+    }
+
+    public void rebuild() {
+        long updated = mongoTemplate.getCollection(MongoQueries.WEATHER_ARCHIVE)
+                .updateMany(new Document("average", new Document("$exists", false)),
+                        List.of(new Document("$set", dailyStats(PARTS_OF_THE_DAY))))
+                .getModifiedCount();
+        log.info("Daily stats added to {} documents", updated);
+        rollupMonths(new Criteria());
+        rollupYears(new Criteria());
+        log.info("Rollups rebuilt: {} months, {} years",
+                mongoTemplate.estimatedCount(MONTH_TEMPERATURE), mongoTemplate.estimatedCount(YEAR_TEMPERATURE));
+    }
+
+    public List<MonthTemperature> getMonths(City city, int fromYear, int toYear) {
+        Query query = Query.query(where("city").is(city.name()).and("year").gte(fromYear).lte(toYear))
+                .with(Sort.by("year", "month"));
+        return mongoTemplate.find(query, MonthTemperature.class, MONTH_TEMPERATURE);
+    }
+
+    public List<YearTemperature> getYears(City city) {
+        Query query = Query.query(where("city").is(city.name())).with(Sort.by("year"));
+        return mongoTemplate.find(query, YearTemperature.class, YEAR_TEMPERATURE);
+    }
+
+    private void rollupMonths(Criteria days) {
+        Document dailyStats = dailyStats(PARTS_OF_THE_DAY);
+        Aggregation aggregation = Aggregation.newAggregation(
+                match(days),
+                // documents written before the stats were persisted fall back to the parts of the day
+                stage("$project", new Document("city", new Document("$ifNull", List.of("$city", City.ODESSA.name())))
+                        .append("day", new Document("$subtract", List.of("$date", HALF_DAY_MILLIS)))
+                        .append("min", ifNull("$min", dailyStats.get("min")))
+                        .append("max", ifNull("$max", dailyStats.get("max")))
+                        .append("average", ifNull("$average", dailyStats.get("average")))),
+                stage("$group", new Document("_id", new Document("city", "$city")
+                        .append("year", new Document("$year", new Document("date", "$day").append("timezone", "UTC")))
+                        .append("month", new Document("$month", new Document("date", "$day").append("timezone", "UTC"))))
+                        .append("min", new Document("$min", "$min"))
+                        .append("max", new Document("$max", "$max"))
+                        .append("average", new Document("$avg", "$average"))
+                        .append("days", new Document("$sum", new Document("$cond",
+                                List.of(new Document("$eq", Arrays.asList(ifNull("$average", null), null)), 0, 1))))),
+                stage("$project", new Document("city", "$_id.city")
+                        .append("year", "$_id.year")
+                        .append("month", "$_id.month")
+                        .append("min", 1)
+                        .append("max", 1)
+                        .append("average", 1)
+                        .append("days", 1)),
+                mergeInto(MONTH_TEMPERATURE));
+        mongoTemplate.aggregate(aggregation, MongoQueries.WEATHER_ARCHIVE, Document.class);
+    }
+
+    private void rollupYears(Criteria months) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                match(months),
+                stage("$group", new Document("_id", new Document("city", "$city").append("year", "$year"))
+                        .append("min", new Document("$min", "$min"))
+                        .append("max", new Document("$max", "$max"))
+                        .append("weightedSum", new Document("$sum", new Document("$multiply", List.of("$average", "$days"))))
+                        .append("days", new Document("$sum", "$days"))),
+                stage("$project", new Document("city", "$_id.city")
+                        .append("year", "$_id.year")
+                        .append("min", 1)
+                        .append("max", 1)
+                        .append("average", new Document("$cond",
+                                Arrays.asList(new Document("$gt", List.of("$days", 0)), new Document("$divide", List.of("$weightedSum", "$days")), null)))
+                        .append("days", 1)),
+                mergeInto(YEAR_TEMPERATURE));
+        mongoTemplate.aggregate(aggregation, MONTH_TEMPERATURE, Document.class);
+    }
+
+    // $min/$max/$avg over an array skip nulls and missing values
+    private static Document dailyStats(List<String> partsOfTheDay) {
+        return new Document("min", new Document("$min", partsOfTheDay))
+                .append("max", new Document("$max", partsOfTheDay))
+                .append("average", new Document("$avg", partsOfTheDay));
+    }
+
+    private static Document ifNull(String field, Object replacement) {
+        return new Document("$ifNull", Arrays.asList(field, replacement));
+    }
+
+    private static AggregationOperation stage(String operator, Document body) {
+        Document stage = new Document(operator, body);
+        return context -> stage;
+    }
+
+    private static MergeOperation mergeInto(String collection) {
+        return Aggregation.merge()
+                .intoCollection(collection)
+                .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+                .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+    }
+}
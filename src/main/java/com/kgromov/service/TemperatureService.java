@@ -3,8 +3,9 @@ package com.kgromov.service;
 import com.kgromov.domain.City;
 import com.kgromov.domain.DailyTemperature;
 import com.kgromov.dtos.TemperatureMeasurementsDto;
+import com.kgromov.repository.DailyTemperatureJdbcRepository;
 import com.kgromov.repository.DailyTemperatureRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,13 +14,25 @@ import java.time.Year;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class TemperatureService {
     private final DailyTemperatureRepository temperatureRepository;
-    private final SinoptikExtractor sinoptikExtractor;
+    private final DailyTemperatureJdbcRepository temperatureJdbcRepository;
+    private final TemperatureExtractor temperatureExtractor;
+    private final Executor fetchExecutor;
+
+    public TemperatureService(DailyTemperatureRepository temperatureRepository,
+                              DailyTemperatureJdbcRepository temperatureJdbcRepository,
+                              TemperatureExtractor temperatureExtractor,
+                              @Qualifier("fetchExecutor") Executor fetchExecutor) {
+        this.temperatureRepository = temperatureRepository;
+        this.temperatureJdbcRepository = temperatureJdbcRepository;
+        this.temperatureExtractor = temperatureExtractor;
+        this.fetchExecutor = fetchExecutor;
+    }
 
     public List<DailyTemperature> getTemperatureForYearsInCity(City city, int startYear, int endYear) {
         LocalDate startDate = Year.of(startYear).atDay(1);
@@ -28,10 +41,10 @@ public class TemperatureService {
     }
 
     public List<DailyTemperature> getTemperatureForYearsInCity(City city, LocalDate startDate, LocalDate endDate) {
-        List<TemperatureMeasurementsDto> temperatures = sinoptikExtractor.getTemperatureForRange(city, startDate, endDate);
+        List<TemperatureMeasurementsDto> temperatures = temperatureExtractor.getTemperatureForRange(city, startDate, endDate, fetchExecutor);
         return temperatures.stream()
                 .parallel()
-                .map(DailyTemperature::new)
+                .map(temperature -> new DailyTemperature(city, temperature))
                 .sorted(Comparator.comparing(DailyTemperature::getDate))
                 .collect(Collectors.toList());
     }
@@ -41,13 +54,18 @@ public class TemperatureService {
         return temperatureRepository.findLatestDateTemperature();
     }
 
+    @Transactional(readOnly = true)
+    public DailyTemperature getLatestDateTemperature(City city) {
+        return temperatureRepository.findFirstByCityOrderByDateDesc(city);
+    }
+
     @Transactional
     public void saveTemperature(Collection<DailyTemperature> daysTemperature) {
-        temperatureRepository.saveAll(daysTemperature);
+        temperatureJdbcRepository.upsert(daysTemperature);
     }
 
     @Transactional
     public void saveTemperature(DailyTemperature dailyTemperature) {
-        temperatureRepository.save(dailyTemperature);
+        temperatureJdbcRepository.upsert(List.of(dailyTemperature));
     }
 }
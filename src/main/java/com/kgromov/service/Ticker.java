@@ -0,0 +1,22 @@
+package com.kgromov.service;
+
+import java.util.concurrent.TimeUnit;
+
+// time source and pauses of SourceGuard, CircuitBreaker and AdaptiveRateLimiter; tests drive them with a manual one
+interface Ticker {
+    Ticker SYSTEM = new Ticker() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleepNanos(long nanos) throws InterruptedException {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    };
+
+    long nanoTime();
+
+    void sleepNanos(long nanos) throws InterruptedException;
+}
@@ -0,0 +1,58 @@
+package com.kgromov.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpResponseException;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.pool.PoolStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// single pooled keep-alive client for all weather sources; bodies are returned already decompressed
+@Slf4j
+@RequiredArgsConstructor
+public class WeatherHttpClient implements Closeable {
+    private final CloseableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    public byte[] get(String url) throws IOException {
+        return httpClient.execute(new HttpGet(url), WeatherHttpClient::readBody);
+    }
+
+    public byte[] postForm(String url, Map<String, String> form) throws IOException {
+        HttpPost post = new HttpPost(url);
+        var parameters = form.entrySet().stream()
+                .map(entry -> new BasicNameValuePair(entry.getKey(), entry.getValue()))
+                .toList();
+        post.setEntity(new UrlEncodedFormEntity(parameters, StandardCharsets.UTF_8));
+        return httpClient.execute(post, WeatherHttpClient::readBody);
+    }
+
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.info("Closing weather http client, pool stats = {}", getPoolStats());
+        httpClient.close();
+    }
+
+    private static byte[] readBody(ClassicHttpResponse response) throws IOException {
+        if (response.getCode() >= 300) {
+            EntityUtils.consume(response.getEntity());
+            throw new HttpResponseException(response.getCode(), response.getReasonPhrase());
+        }
+        return EntityUtils.toByteArray(response.getEntity());
+    }
+}
@@ -0,0 +1,127 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveFileReaderTests {
+
+    @Test
+    void csvSampleSkipsHeader() throws Exception {
+        List<DailyTemperature> days = readAll(fixture("sample.csv"), 1);
+
+        assertThat(days).extracting(DailyTemperature::getDate).containsExactly(
+                LocalDate.of(2010, 1, 28), LocalDate.of(2010, 2, 1), LocalDate.of(2010, 2, 3), LocalDate.of(2023, 10, 7));
+        assertThat(days).allSatisfy(day -> assertThat(day.getCity()).isEqualTo(City.KYIV));
+        DailyTemperature first = days.get(0);
+        assertThat(first.getMorningTemperature()).isEqualTo(-4.58);
+        assertThat(first.getAfternoonTemperature()).isEqualTo(-3.42);
+        assertThat(first.getEveningTemperature()).isEqualTo(-2.83);
+        assertThat(first.getNightTemperature()).isEqualTo(-4.58);
+    }
+
+    @Test
+    void jsonSampleMatchesCsv() throws Exception {
+        List<DailyTemperature> json = readAll(fixture("sample.json"), 1);
+
+        assertThat(json).hasSize(4)
+                .usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(readAll(fixture("sample.csv"), 1));
+    }
+
+    @Test
+    void missingValuesAreNull() throws Exception {
+        for (String sample : List.of("sample.csv", "sample.json")) {
+            DailyTemperature day = readAll(fixture(sample), 1).get(2);
+
+            assertThat(day.getMorningTemperature()).isEqualTo(12.0);
+            assertThat(day.getAfternoonTemperature()).isEqualTo(0.25);
+            assertThat(day.getEveningTemperature()).isNull();
+            assertThat(day.getNightTemperature()).isEqualTo(-0.5);
+        }
+    }
+
+    @Test
+    void rangesSplitMidLineStartOnLineBoundaries() throws Exception {
+        Path file = fixture("sample.csv");
+        byte[] bytes = Files.readAllBytes(file);
+        List<DailyTemperature> whole = readAll(file, 1);
+
+        for (int gridSize = 2; gridSize <= bytes.length; gridSize++) {
+            long expectedStart = 0;
+            for (Range range : ranges(file, gridSize)) {
+                assertThat(range.start()).isEqualTo(expectedStart);
+                assertThat(range.start() == 0 || bytes[(int) range.start() - 1] == '\n')
+                        .as("range starts a line at %d", range.start()).isTrue();
+                expectedStart = range.end();
+            }
+            assertThat(expectedStart).isEqualTo(bytes.length);
+            assertThat(readAll(file, gridSize)).usingRecursiveFieldByFieldElementComparator().isEqualTo(whole);
+        }
+    }
+
+    @Test
+    void decimals() {
+        assertThat(decimal("-3.42")).isEqualTo(-3.42);
+        assertThat(decimal("12")).isEqualTo(12.0);
+        assertThat(decimal("+0.5")).isEqualTo(0.5);
+        assertThat(decimal("-0.05")).isEqualTo(-0.05);
+        assertThat(decimal(" 21.0\r")).isEqualTo(21.0);
+        assertThat(decimal("")).isNull();
+        assertThat(decimal("null")).isNull();
+    }
+
+    // the dumps shipped with the project hold the same days
+    @Test
+    void bundledDumpsAgree() throws Exception {
+        List<DailyTemperature> csv = readAll(Path.of("data.csv"), 4);
+        List<DailyTemperature> json = readAll(Path.of("data.json"), 4);
+
+        assertThat(csv).hasSize(5007);
+        assertThat(json).usingRecursiveFieldByFieldElementComparator().isEqualTo(csv);
+    }
+
+    private static List<DailyTemperature> readAll(Path file, int gridSize) throws Exception {
+        List<DailyTemperature> days = new ArrayList<>();
+        for (Range range : ranges(file, gridSize)) {
+            ArchiveFileReader reader = new ArchiveFileReader(file, range.start(), range.end(), City.KYIV);
+            reader.open(new ExecutionContext());
+            for (DailyTemperature day = reader.read(); day != null; day = reader.read()) {
+                days.add(day);
+            }
+            reader.close();
+        }
+        return days;
+    }
+
+    private static List<Range> ranges(Path file, int gridSize) {
+        return new ArchiveFilePartitioner(file).partition(gridSize).values().stream()
+                .map(context -> new Range(context.getLong(ArchiveFilePartitioner.START_OFFSET),
+                        context.getLong(ArchiveFilePartitioner.END_OFFSET)))
+                .toList();
+    }
+
+    private record Range(long start, long end) {
+    }
+
+    private static Double decimal(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        return ArchiveFileReader.parseDecimal(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static Path fixture(String name) throws URISyntaxException {
+        return Path.of(ArchiveFileReaderTests.class.getResource("/archive/" + name).toURI());
+    }
+}
@@ -0,0 +1,97 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.repository.dao.DefaultExecutionContextSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EpochDayBitmapTests {
+    private static final LocalDate DAY = LocalDate.of(2023, 3, 15);
+
+    @Test
+    void containsAddedDaysOnly() {
+        EpochDayBitmap bitmap = bitmapOf(DAY, DAY.plusDays(2), DAY.plusDays(70));
+
+        assertThat(bitmap.size()).isEqualTo(3);
+        assertThat(bitmap.contains(DAY)).isTrue();
+        assertThat(bitmap.contains(DAY.plusDays(2))).isTrue();
+        assertThat(bitmap.contains(DAY.plusDays(70))).isTrue();
+        assertThat(bitmap.contains(DAY.plusDays(1))).isFalse();
+        assertThat(bitmap.contains(DAY.minusDays(1))).isFalse();
+        assertThat(bitmap.contains(DAY.plusDays(71))).isFalse();
+    }
+
+    @Test
+    void earlierDayShiftsPresentDays() {
+        EpochDayBitmap bitmap = bitmapOf(DAY, DAY.plusDays(3), DAY.minusDays(100), DAY.plusDays(1), DAY.minusDays(101));
+
+        assertThat(bitmap.size()).isEqualTo(5);
+        for (LocalDate day : List.of(DAY, DAY.plusDays(3), DAY.minusDays(100), DAY.plusDays(1), DAY.minusDays(101))) {
+            assertThat(bitmap.contains(day)).as("contains %s", day).isTrue();
+        }
+        assertThat(bitmap.contains(DAY.minusDays(99))).isFalse();
+        assertThat(bitmap.contains(DAY.plusDays(2))).isFalse();
+        assertThat(bitmap.contains(DAY.minusDays(102))).isFalse();
+        assertThat(bitmap).hasToString("[" + DAY.minusDays(101) + "; " + DAY.plusDays(3) + "], 5 days");
+    }
+
+    @Test
+    void addingTwiceKeepsOneDay() {
+        EpochDayBitmap bitmap = bitmapOf(DAY, DAY, DAY.minusDays(1), DAY.minusDays(1));
+
+        assertThat(bitmap.size()).isEqualTo(2);
+    }
+
+    @Test
+    void emptyBitmapContainsNothing() {
+        EpochDayBitmap bitmap = new EpochDayBitmap();
+
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.contains(LocalDate.ofEpochDay(0))).isFalse();
+        assertThat(bitmap).hasToString("[]");
+    }
+
+    // datesToSync lives in the job execution context, i.e. goes through the job repository serializer
+    @Test
+    void survivesExecutionContextSerialization() throws Exception {
+        EpochDayBitmap bitmap = bitmapOf(DAY.plusDays(400), DAY, DAY.minusDays(64), DAY.minusDays(63));
+        Map<City, EpochDayBitmap> datesToSync = new HashMap<>(Map.of(City.ODESSA, bitmap, City.KYIV, new EpochDayBitmap()));
+
+        Map<String, Object> restored = roundTrip(Map.of("datesToSync", datesToSync));
+
+        Map<City, EpochDayBitmap> restoredDates = (Map<City, EpochDayBitmap>) restored.get("datesToSync");
+        EpochDayBitmap odessa = restoredDates.get(City.ODESSA);
+        assertThat(odessa.size()).isEqualTo(4);
+        for (LocalDate day = DAY.minusDays(70); day.isBefore(DAY.plusDays(410)); day = day.plusDays(1)) {
+            assertThat(odessa.contains(day)).as("contains %s", day).isEqualTo(bitmap.contains(day));
+        }
+        assertThat(restoredDates.get(City.KYIV).isEmpty()).isTrue();
+
+        odessa.add(DAY.minusDays(1000));
+        assertThat(odessa.contains(DAY.minusDays(1000))).isTrue();
+        assertThat(odessa.contains(DAY.plusDays(400))).isTrue();
+    }
+
+    private static EpochDayBitmap bitmapOf(LocalDate... days) {
+        EpochDayBitmap bitmap = new EpochDayBitmap();
+        for (LocalDate day : days) {
+            bitmap.add(day);
+        }
+        return bitmap;
+    }
+
+    private static Map<String, Object> roundTrip(Map<String, Object> context) throws Exception {
+        DefaultExecutionContextSerializer serializer = new DefaultExecutionContextSerializer();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize(context, out);
+        return serializer.deserialize(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.kgromov.batch;
+
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TemperatureSnapshotFormatTests {
+
+    @Test
+    void blocksRoundTrip() {
+        List<DailyTemperature> odessa = days(City.ODESSA, LocalDate.of(2010, 1, 26), TemperatureSnapshotFormat.MAX_BLOCK_ROWS);
+        List<DailyTemperature> kyiv = List.of(
+                day(City.KYIV, LocalDate.of(2023, 3, 15), -12.42, null, 0.0, 31.5),
+                day(City.KYIV, LocalDate.of(2021, 1, 1), 1.08, 2.5, -0.67, null));
+
+        ByteBuffer snapshot = concat(TemperatureSnapshotFormat.header(),
+                TemperatureSnapshotFormat.encodeBlock(City.ODESSA, odessa),
+                TemperatureSnapshotFormat.encodeBlock(City.KYIV, kyiv));
+
+        TemperatureSnapshotFormat.checkHeader(snapshot);
+        assertSameDays(TemperatureSnapshotFormat.decodeBlock(snapshot), odessa);
+        assertSameDays(TemperatureSnapshotFormat.decodeBlock(snapshot), kyiv);
+        assertThat(TemperatureSnapshotFormat.decodeBlock(snapshot)).isNull();
+        // 4096 consecutive days: one byte per date delta and four shorts per day
+        assertThat(snapshot.limit()).isLessThan(odessa.size() * 10);
+    }
+
+    @Test
+    void corruptedBlockIsRejected() {
+        ByteBuffer block = TemperatureSnapshotFormat.encodeBlock(City.ODESSA, days(City.ODESSA, LocalDate.of(2020, 1, 1), 10));
+        block.put(block.limit() - 1, (byte) (block.get(block.limit() - 1) ^ 1));
+
+        assertThatThrownBy(() -> TemperatureSnapshotFormat.decodeBlock(block))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Checksum mismatch");
+    }
+
+    @Test
+    void readerStreamsMappedFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("snapshot.wts");
+        List<DailyTemperature> days = days(City.LVIV, LocalDate.of(2015, 6, 1), 5000);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            channel.write(TemperatureSnapshotFormat.header());
+            channel.write(TemperatureSnapshotFormat.encodeBlock(City.LVIV, days.subList(0, TemperatureSnapshotFormat.MAX_BLOCK_ROWS)));
+            channel.write(TemperatureSnapshotFormat.encodeBlock(City.LVIV, days.subList(TemperatureSnapshotFormat.MAX_BLOCK_ROWS, days.size())));
+        }
+
+        TemperatureSnapshotReader reader = new TemperatureSnapshotReader(file);
+        reader.open(new ExecutionContext());
+        List<DailyTemperature> read = new ArrayList<>();
+        DailyTemperature day;
+        while ((day = reader.read()) != null) {
+            read.add(day);
+        }
+        reader.close();
+
+        assertSameDays(read, days);
+    }
+
+    private static void assertSameDays(List<DailyTemperature> actual, List<DailyTemperature> expected) {
+        assertThat(actual).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+    }
+
+    private static List<DailyTemperature> days(City city, LocalDate from, int count) {
+        List<DailyTemperature> days = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            days.add(day(city, from.plusDays(i), i % 40 - 20 + 0.25, (i % 7) * 1.5, -(i % 13) / 100.0, i % 3 == 0 ? null : 5.08));
+        }
+        return days;
+    }
+
+    private static DailyTemperature day(City city, LocalDate date, Double morning, Double afternoon, Double evening, Double night) {
+        return DailyTemperature.builder()
+                .city(city)
+                .date(date)
+                .morningTemperature(morning)
+                .afternoonTemperature(afternoon)
+                .eveningTemperature(evening)
+                .nightTemperature(night)
+                .build();
+    }
+
+    private static ByteBuffer concat(ByteBuffer... buffers) {
+        ByteBuffer result = ByteBuffer.allocate(Arrays.stream(buffers).mapToInt(ByteBuffer::remaining).sum());
+        for (ByteBuffer buffer : buffers) {
+            result.put(buffer);
+        }
+        return result.flip();
+    }
+}
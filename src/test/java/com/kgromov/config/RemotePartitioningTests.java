@@ -0,0 +1,151 @@
+package com.kgromov.config;
+
+import com.kgromov.batch.BatchMetricsListener;
+import com.kgromov.batch.CityPartitioner;
+import com.kgromov.batch.MongoKeysetItemReader;
+import com.kgromov.batch.TemperatureReader;
+import com.kgromov.batch.TemperatureWriter;
+import com.kgromov.domain.City;
+import com.kgromov.domain.DailyTemperature;
+import com.kgromov.domain.DailyTemperatureDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// both manager steps and their workers in one JVM, as with the in-JVM channels out of the box
+@SpringJUnitConfig({RemotePartitioningConfig.class, RemotePartitioningWorkerConfig.class, RemotePartitioningTests.TestConfig.class})
+@ActiveProfiles("remote-partitioning")
+class RemotePartitioningTests {
+    private static final List<City> CITIES = List.of(City.ODESSA, City.KYIV, City.LVIV);
+
+    @Autowired
+    private JobLauncher jobLauncher;
+    @Autowired
+    private JobExplorer jobExplorer;
+    @Autowired
+    private Job remoteFetchTemperatureJob;
+    @Autowired
+    private Job remoteReadFromMongoJob;
+
+    @Test
+    @Timeout(60)
+    void fetchManagerCollectsRepliesOfAllPartitions() throws Exception {
+        assertAllPartitionsCompleted(run(remoteFetchTemperatureJob), RemotePartitioningConfig.FETCH_WORKER_STEP);
+    }
+
+    @Test
+    @Timeout(60)
+    void readFromMongoManagerCollectsRepliesOfAllPartitions() throws Exception {
+        assertAllPartitionsCompleted(run(remoteReadFromMongoJob), RemotePartitioningConfig.READ_FROM_MONGO_WORKER_STEP);
+    }
+
+    private JobExecution run(Job job) throws Exception {
+        return jobLauncher.run(job, new JobParametersBuilder().addLong("run.id", System.nanoTime()).toJobParameters());
+    }
+
+    // partitions are updated by the workers in the job repository, the manager keeps its own copies
+    private void assertAllPartitionsCompleted(JobExecution execution, String workerStep) {
+        assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        List<StepExecution> partitions = jobExplorer.getJobExecution(execution.getId()).getStepExecutions().stream()
+                .filter(stepExecution -> stepExecution.getStepName().startsWith(workerStep + ":"))
+                .toList();
+        assertThat(partitions).hasSizeGreaterThanOrEqualTo(CITIES.size())
+                .allSatisfy(partition -> assertThat(partition.getStatus()).isEqualTo(BatchStatus.COMPLETED));
+    }
+
+    @Configuration
+    @EnableBatchProcessing
+    static class TestConfig {
+
+        @Bean
+        public DataSource dataSource() {
+            return new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .addScript("/org/springframework/batch/core/schema-h2.sql")
+                    .build();
+        }
+
+        @Bean
+        public JdbcTransactionManager transactionManager(DataSource dataSource) {
+            return new JdbcTransactionManager(dataSource);
+        }
+
+        @Bean
+        public ThreadPoolTaskExecutor stepExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(4);
+            executor.setThreadNamePrefix("step-");
+            return executor;
+        }
+
+        @Bean
+        public CityPartitioner cityPartitioner() {
+            return new CityPartitioner(CITIES, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
+        }
+
+        @Bean
+        public CityPartitioner mongoArchivePartitioner() {
+            return new CityPartitioner(CITIES, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
+        }
+
+        @Bean
+        public BatchMetricsListener batchMetricsListener() {
+            return new BatchMetricsListener();
+        }
+
+        // readers return null right away, so every partition completes empty
+        @Bean
+        public TemperatureReader temperatureReader() {
+            return mock(TemperatureReader.class);
+        }
+
+        @Bean
+        public TemperatureWriter temperatureWriter() {
+            return mock(TemperatureWriter.class);
+        }
+
+        @Bean
+        @SuppressWarnings("unchecked")
+        public MongoKeysetItemReader<DailyTemperatureDocument> mongoKeysetReader() {
+            return mock(MongoKeysetItemReader.class);
+        }
+
+        @Bean
+        @SuppressWarnings("unchecked")
+        public ItemProcessor<DailyTemperatureDocument, DailyTemperature> fromMongoProcessor() {
+            return mock(ItemProcessor.class);
+        }
+
+        @Bean
+        @SuppressWarnings("unchecked")
+        public ItemWriter<DailyTemperature> mongoToJdbcWriter() {
+            return mock(ItemWriter.class);
+        }
+    }
+}
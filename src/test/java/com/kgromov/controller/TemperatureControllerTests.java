@@ -0,0 +1,53 @@
+package com.kgromov.controller;
+
+import com.kgromov.domain.City;
+import com.kgromov.dtos.JsonSnapshot;
+import com.kgromov.service.TemperatureHistoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TemperatureControllerTests {
+    private static final String BODY = "[{\"city\":\"ODESSA\",\"date\":\"2023-03-15\"}]";
+    private static final JsonSnapshot SNAPSHOT = new JsonSnapshot(BODY.getBytes(StandardCharsets.UTF_8), "\"abc\"");
+
+    private final TemperatureHistoryService historyService = mock(TemperatureHistoryService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new TemperatureController(historyService)).build();
+
+    @Test
+    void writesCachedBodyWithETag() throws Exception {
+        when(historyService.getRange(City.ODESSA, LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31))).thenReturn(SNAPSHOT);
+
+        mockMvc.perform(get("/api/temperature/ODESSA?from=2023-03-01&to=2023-03-31"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/json"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""))
+                .andExpect(content().json(BODY));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        when(historyService.getSameDayInPastYears(City.ODESSA, LocalDate.of(2023, 3, 15), 5)).thenReturn(SNAPSHOT);
+
+        mockMvc.perform(get("/api/temperature/ODESSA/history?date=2023-03-15&years=5").header(HttpHeaders.IF_NONE_MATCH, "\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void missingLatestDayIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/temperature/KYIV/latest"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,53 @@
+package com.kgromov.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DailyTemperatureDocumentTests {
+
+    @Test
+    void statsSkipMissingPartsOfTheDay() {
+        DailyTemperatureDocument document = DailyTemperatureDocument.builder()
+                .city(City.ODESSA)
+                .date(LocalDateTime.of(2023, 3, 16, 0, 0))
+                .morningTemperature(4.5)
+                .eveningTemperature(-1.5)
+                .nightTemperature(2.0)
+                .build();
+
+        assertThat(document.getMin()).isEqualTo(-1.5);
+        assertThat(document.getMax()).isEqualTo(4.5);
+        assertThat(document.getAverage()).isEqualTo(5.0 / 3);
+    }
+
+    @Test
+    void statsOfDayWithoutMeasurementsAreNull() {
+        DailyTemperatureDocument document = DailyTemperatureDocument.builder()
+                .city(City.ODESSA)
+                .date(LocalDateTime.of(2023, 3, 16, 0, 0))
+                .build();
+
+        assertThat(document.getMin()).isNull();
+        assertThat(document.getMax()).isNull();
+        assertThat(document.getAverage()).isNull();
+    }
+
+    @Test
+    void dailyStatsIgnoreStoredStats() {
+        DailyTemperatureDocument document = DailyTemperatureDocument.builder()
+                .morningTemperature(1.0)
+                .afternoonTemperature(3.0)
+                .min(-10.0)
+                .max(10.0)
+                .average(0.0)
+                .build();
+
+        assertThat(document.dailyMin()).isEqualTo(1.0);
+        assertThat(document.dailyMax()).isEqualTo(3.0);
+        assertThat(document.dailyAverage()).isEqualTo(2.0);
+        assertThat(document.getMin()).isEqualTo(-10.0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.kgromov.dtos;
+
+import com.kgromov.domain.PartOfTheDay;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemperatureMeasurementsDtoTests {
+    private static final LocalDate DATE = LocalDate.of(2023, 3, 15);
+
+    @Test
+    void bucketsByPartOfTheDayBounds() {
+        TemperatureMeasurementsDto dto = new TemperatureMeasurementsDto(DATE);
+        dto.addMeasurement(0, -4);          // 00:00 night
+        dto.addMeasurement(359, -2);        // 05:59 night
+        dto.addMeasurement(360, 1);         // 06:00 morning
+        dto.addMeasurement(720, 10);        // 12:00 afternoon
+        dto.addMeasurement(1079, 12);       // 17:59 afternoon
+        dto.addMeasurement(1080, 7);        // 18:00 evening
+        dto.addMeasurement(1439, 3);        // 23:59 evening
+
+        assertThat(dto.getNightTemperature()).isEqualTo(-3.0);
+        assertThat(dto.getMorningTemperature()).isEqualTo(1.0);
+        assertThat(dto.getAfternoonTemperature()).isEqualTo(11.0);
+        assertThat(dto.getEveningTemperature()).isEqualTo(5.0);
+        assertThat(dto.size()).isEqualTo(7);
+    }
+
+    @Test
+    void roundsHalfUpAwayFromZero() {
+        TemperatureMeasurementsDto dto = new TemperatureMeasurementsDto(DATE);
+        // night: -17 / 8 = -2.125 -> -2.13
+        for (int temperature : new int[]{-2, -2, -2, -2, -2, -2, -2, -3}) {
+            dto.addMeasurement(60, temperature);
+        }
+        // morning: 17 / 8 = 2.125 -> 2.13, afternoon: 2 / 3 = 0.666.. -> 0.67
+        for (int temperature : new int[]{2, 2, 2, 2, 2, 2, 2, 3}) {
+            dto.addMeasurement(420, temperature);
+        }
+        dto.addMeasurement(800, 1);
+        dto.addMeasurement(810, 1);
+        dto.addMeasurement(820, 0);
+
+        assertThat(dto.getNightTemperature()).isEqualTo(-2.13);
+        assertThat(dto.getMorningTemperature()).isEqualTo(2.13);
+        assertThat(dto.getAfternoonTemperature()).isEqualTo(0.67);
+        assertThat(dto.getEveningTemperature()).isEqualTo(0.0);
+    }
+
+    @Test
+    void matchesStreamAverageWithBigDecimalRounding() {
+        Random random = new Random(42);
+        for (int day = 0; day < 1000; day++) {
+            TemperatureMeasurementsDto dto = new TemperatureMeasurementsDto(DATE);
+            int measurements = 1 + random.nextInt(100);
+            for (int i = 0; i < measurements; i++) {
+                dto.addMeasurement(random.nextInt(24 * 60), random.nextInt(81) - 40);
+            }
+            List<WeatherMeasurementDto> list = dto.getDailyMeasurements();
+
+            assertThat(dto.getMorningTemperature()).isEqualTo(legacyAverage(list, PartOfTheDay.MORNING));
+            assertThat(dto.getAfternoonTemperature()).isEqualTo(legacyAverage(list, PartOfTheDay.AFTERNOON));
+            assertThat(dto.getEveningTemperature()).isEqualTo(legacyAverage(list, PartOfTheDay.EVENING));
+            assertThat(dto.getNightTemperature()).isEqualTo(legacyAverage(list, PartOfTheDay.NIGHT));
+        }
+    }
+
+    // the previous stream based implementation
+    private static double legacyAverage(List<WeatherMeasurementDto> measurements, PartOfTheDay partOfTheDay) {
+        LocalTime min = partOfTheDay.getStart();
+        LocalTime max = partOfTheDay.getEnd();
+        double temperature = measurements.stream()
+                .filter(m -> m.getTime().compareTo(min) >= 0)
+                .filter(m -> m.getTime().isBefore(max))
+                .mapToInt(WeatherMeasurementDto::getTemperature)
+                .average()
+                .orElse(0.0);
+        return BigDecimal.valueOf(temperature).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+}
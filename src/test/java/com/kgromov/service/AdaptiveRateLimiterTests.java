@@ -0,0 +1,83 @@
+package com.kgromov.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveRateLimiterTests {
+    private static final Duration TARGET_LATENCY = Duration.ofSeconds(2);
+    private static final long FAST = Duration.ofMillis(100).toNanos();
+    private static final long SLOW = Duration.ofSeconds(3).toNanos();
+
+    private final ManualTicker ticker = new ManualTicker();
+    private final AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter("test", 4, 0.5, TARGET_LATENCY, ticker);
+
+    @Test
+    void pacesRequestsAtTheRate() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire();
+        }
+
+        assertThat(ticker.sleeps()).containsExactly(Duration.ofMillis(250), Duration.ofMillis(250));
+    }
+
+    @Test
+    void idleTimeIsNotSavedUp() throws Exception {
+        rateLimiter.acquire();
+        ticker.advance(Duration.ofSeconds(10));
+        rateLimiter.acquire();
+        rateLimiter.acquire();
+
+        assertThat(ticker.sleeps()).containsExactly(Duration.ofMillis(250));
+    }
+
+    @Test
+    void nonPositiveCeilingIsUnlimited() throws Exception {
+        AdaptiveRateLimiter unlimited = new AdaptiveRateLimiter("test", 0, 0.5, TARGET_LATENCY, ticker);
+        for (int i = 0; i < 10; i++) {
+            unlimited.acquire();
+        }
+
+        assertThat(ticker.sleeps()).isEmpty();
+    }
+
+    @Test
+    void failuresAndSlowResponsesHalveTheRateDownToTheFloor() {
+        rateLimiter.onFailure();
+        assertThat(rateLimiter.getPermitsPerSecond()).isEqualTo(2);
+        rateLimiter.onSuccess(SLOW);
+        assertThat(rateLimiter.getPermitsPerSecond()).isEqualTo(1);
+        rateLimiter.onFailure();
+        rateLimiter.onFailure();
+
+        assertThat(rateLimiter.getPermitsPerSecond()).isEqualTo(0.5);
+    }
+
+    @Test
+    void fastResponsesAddRateBackUpToTheCeiling() {
+        rateLimiter.onFailure();
+        rateLimiter.onFailure();
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.onSuccess(FAST);
+        }
+        assertThat(rateLimiter.getPermitsPerSecond()).isCloseTo(1.5, within(1e-9));
+
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.onSuccess(FAST);
+        }
+        assertThat(rateLimiter.getPermitsPerSecond()).isEqualTo(4);
+    }
+
+    @Test
+    void lowerRateWidensTheSpacing() throws Exception {
+        rateLimiter.acquire();
+        rateLimiter.onFailure();
+        rateLimiter.acquire();
+        rateLimiter.acquire();
+
+        assertThat(ticker.sleeps()).containsExactly(Duration.ofMillis(250), Duration.ofMillis(500));
+    }
+}
@@ -0,0 +1,92 @@
+package com.kgromov.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTests {
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(60);
+
+    private final ManualTicker ticker = new ManualTicker();
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, OPEN_DURATION, ticker);
+
+    @Test
+    void opensAfterThresholdConsecutiveFailures() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void probesOnceOpenDurationIsOver() throws Exception {
+        open();
+
+        ticker.advance(OPEN_DURATION);
+        breaker.awaitPermission();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedProbeOpensAgainAtOnce() throws Exception {
+        open();
+        ticker.advance(OPEN_DURATION);
+        breaker.awaitPermission();
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        ticker.advance(OPEN_DURATION.minusSeconds(1));
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void closedBreakerDoesNotWait() throws Exception {
+        breaker.awaitPermission();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    // callers are parked, not failed, until the breaker cools down
+    @Test
+    @Timeout(10)
+    void parksCallersWhileOpen() throws Exception {
+        CircuitBreaker shortBreaker = new CircuitBreaker("test", 1, Duration.ofMillis(50), ticker);
+        shortBreaker.onFailure();
+
+        CompletableFuture<Void> caller = CompletableFuture.runAsync(() -> {
+            try {
+                shortBreaker.awaitPermission();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertThat(caller).isNotDone();
+
+        ticker.advance(Duration.ofMillis(50));
+        caller.get();
+        assertThat(shortBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,30 @@
+package com.kgromov.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// time moves only when advanced or slept through; every sleep is recorded
+class ManualTicker implements Ticker {
+    private final List<Duration> sleeps = new ArrayList<>();
+    private volatile long now;
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    @Override
+    public synchronized void sleepNanos(long nanos) {
+        sleeps.add(Duration.ofNanos(nanos));
+        now += nanos;
+    }
+
+    synchronized void advance(Duration duration) {
+        now += duration.toNanos();
+    }
+
+    synchronized List<Duration> sleeps() {
+        return List.copyOf(sleeps);
+    }
+}
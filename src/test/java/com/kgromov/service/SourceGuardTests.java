@@ -0,0 +1,124 @@
+package com.kgromov.service;
+
+import com.kgromov.config.ResilienceSettings;
+import org.apache.hc.client5.http.HttpResponseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SourceGuardTests {
+    private static final byte[] PAGE = {1, 2, 3};
+    private static final Duration INITIAL_BACKOFF = Duration.ofMillis(100);
+    private static final Duration MAX_BACKOFF = Duration.ofMillis(250);
+
+    private final ManualTicker ticker = new ManualTicker();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void retriesTransientFailures() throws Exception {
+        SourceGuard guard = guard(4, 10);
+
+        byte[] page = guard.call(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new SocketTimeoutException("timeout");
+            }
+            return PAGE;
+        });
+
+        assertThat(page).isEqualTo(PAGE);
+        assertThat(calls).hasValue(3);
+        assertBackoffs(ticker.sleeps());
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        SourceGuard guard = guard(4, 10);
+        SocketTimeoutException failure = new SocketTimeoutException("timeout");
+
+        assertThatThrownBy(() -> guard.call(() -> {
+            calls.incrementAndGet();
+            throw failure;
+        })).isSameAs(failure);
+
+        assertThat(calls).hasValue(4);
+        assertThat(ticker.sleeps()).hasSize(3);
+        assertBackoffs(ticker.sleeps());
+    }
+
+    @Test
+    void exhaustedRetriesOpenTheBreaker() {
+        SourceGuard guard = guard(3, 3);
+
+        assertThatThrownBy(() -> guard.call(() -> {
+            throw new HttpResponseException(503, "Service Unavailable");
+        })).isInstanceOf(HttpResponseException.class);
+
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    // the host answered: nothing to retry and no reason to trip the breaker
+    @Test
+    void clientErrorsAreNotRetried() {
+        SourceGuard guard = guard(4, 1);
+
+        assertThatThrownBy(() -> guard.call(() -> {
+            calls.incrementAndGet();
+            throw new HttpResponseException(404, "Not Found");
+        })).isInstanceOf(HttpResponseException.class);
+
+        assertThat(calls).hasValue(1);
+        assertThat(ticker.sleeps()).isEmpty();
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void uncheckedFailuresAreCountedNotRetried() {
+        SourceGuard guard = guard(4, 1);
+
+        assertThatThrownBy(() -> guard.call(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("broken");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(calls).hasValue(1);
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void slowResponsesLowerTheRate() throws Exception {
+        SourceGuard guard = new SourceGuard("test", 4, settings(4, 10), ticker);
+
+        guard.call(() -> {
+            ticker.advance(Duration.ofSeconds(3));
+            return PAGE;
+        });
+
+        assertThat(guard.getRateLimiter().getPermitsPerSecond()).isEqualTo(2);
+    }
+
+    // full jitter: the n-th backoff is anywhere in [0; min(maxBackoff, initialBackoff * 2^(n-1))]
+    private static void assertBackoffs(List<Duration> sleeps) {
+        for (int i = 0; i < sleeps.size(); i++) {
+            Duration cap = INITIAL_BACKOFF.multipliedBy(1L << i);
+            assertThat(sleeps.get(i)).isBetween(Duration.ZERO, cap.compareTo(MAX_BACKOFF) < 0 ? cap : MAX_BACKOFF);
+        }
+    }
+
+    // unlimited rate, so the only sleeps are retry backoffs
+    private SourceGuard guard(int maxAttempts, int failureThreshold) {
+        return new SourceGuard("test", 0, settings(maxAttempts, failureThreshold), ticker);
+    }
+
+    private static ResilienceSettings settings(int maxAttempts, int failureThreshold) {
+        return new ResilienceSettings(maxAttempts, INITIAL_BACKOFF, MAX_BACKOFF, Duration.ofSeconds(2), 0.2,
+                failureThreshold, Duration.ofSeconds(60));
+    }
+}
@@ -0,0 +1,68 @@
+package com.kgromov.service;
+
+import com.kgromov.dtos.TemperatureMeasurementsDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingTemperatureParserTests {
+    private static final LocalDate DATE = LocalDate.of(2023, 3, 15);
+
+    @Test
+    void sinoptikStreamingMatchesDom() throws IOException {
+        byte[] page = fixture("sinoptik.html");
+
+        TemperatureMeasurementsDto streamed = new TemperatureMeasurementsDto(DATE);
+        int count = StreamingTemperatureParser.parseSinoptik(page, streamed::addMeasurement);
+        TemperatureMeasurementsDto dom = SinoptikExtractor.parseDocument(page, "https://ua.sinoptik.ua", DATE);
+
+        assertThat(count).isEqualTo(8);
+        assertThat(streamed.getDailyMeasurements()).isEqualTo(dom.getDailyMeasurements());
+    }
+
+    @Test
+    void meteopostStreamingMatchesDom() throws IOException {
+        byte[] page = fixture("meteopost.html");
+
+        TemperatureMeasurementsDto streamed = new TemperatureMeasurementsDto(DATE);
+        int count = StreamingTemperatureParser.parseMeteopost(page, streamed::addMeasurement);
+        TemperatureMeasurementsDto dom = MeteopostExtractor.parseDocument(page, "https://meteopost.com/weather/archive/", DATE);
+
+        assertThat(count).isEqualTo(48);
+        assertThat(streamed.getDailyMeasurements()).isEqualTo(dom.getDailyMeasurements());
+    }
+
+    @Test
+    void pageWithoutTableIsRejected() {
+        byte[] page = "<html><body><table class=\"other\"><tr><td>1</td></tr></table></body></html>"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(StreamingTemperatureParser.parseSinoptik(page, (minute, temperature) -> {})).isEqualTo(-1);
+        assertThat(StreamingTemperatureParser.parseMeteopost(page, (minute, temperature) -> {})).isEqualTo(-1);
+    }
+
+    @Test
+    void temperatureSigns() {
+        assertThat(temperature("+12&deg;")).isEqualTo(12);
+        assertThat(temperature("-3°")).isEqualTo(-3);
+        assertThat(temperature("&minus;7&deg;")).isEqualTo(-7);
+        assertThat(temperature("−4°")).isEqualTo(-4);
+        assertThat(temperature("<span>0</span>°")).isEqualTo(0);
+    }
+
+    private static int temperature(String cell) {
+        byte[] bytes = cell.getBytes(StandardCharsets.UTF_8);
+        return StreamingTemperatureParser.parseTemperature(bytes, 0, bytes.length);
+    }
+
+    static byte[] fixture(String name) throws IOException {
+        try (InputStream in = StreamingTemperatureParserTests.class.getResourceAsStream("/pages/" + name)) {
+            return in.readAllBytes();
+        }
+    }
+}